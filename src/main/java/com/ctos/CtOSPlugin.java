@@ -1,9 +1,15 @@
 package com.ctos;
 
 import com.ctos.commands.WandCommand;
+import com.ctos.listeners.ChunkActivityListener;
+import com.ctos.listeners.ClientRenderListener;
+import com.ctos.listeners.ItemFrameTrackingListener;
 import com.ctos.listeners.WandInteractionListener;
+import com.ctos.listeners.WorldRegistryListener;
 import com.ctos.trafficlight.model.BlockStateData;
+import com.ctos.trafficlight.model.DisplayStateData;
 import com.ctos.trafficlight.model.Intersection;
+import com.ctos.trafficlight.model.ItemFrameHandles;
 import com.ctos.trafficlight.service.IntersectionManager;
 import com.ctos.trafficlight.service.IntersectionPersistence;
 import com.ctos.trafficlight.service.TrafficLightAnimator;
@@ -14,6 +20,9 @@ import com.ctos.traincarts.model.BartStationConfig;
 import com.ctos.traincarts.service.BartRedstoneController;
 import com.ctos.traincarts.service.BartStationManager;
 import com.ctos.traincarts.service.BartStationPersistence;
+import com.ctos.util.BlockDataCache;
+import com.ctos.util.ProfileCache;
+import com.ctos.util.WorldRegistry;
 import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -69,12 +78,15 @@ public class CtOSPlugin extends JavaPlugin {
         // 3. Initialize managers and services
         getLogger().info("Initializing managers...");
         intersectionManager = new IntersectionManager();
+        intersectionManager.setDebugChecks(isDebugEnabled());
         persistence = new IntersectionPersistence(dataDirectory);
         animator = new TrafficLightAnimator(this, intersectionManager);
         wandStateManager = new WandStateManager(this);
 
-        // 4. Initialize WandState
+        // 4. Initialize WandState, the item frame ownership tag and the world handle cache
         WandState.initialize(this);
+        ItemFrameHandles.initialize(this);
+        WorldRegistry.seed();
 
         // 5. Load intersections from disk
         getLogger().info("Loading intersections from disk...");
@@ -91,6 +103,10 @@ public class CtOSPlugin extends JavaPlugin {
         getLogger().info("Registering event listeners...");
         WandInteractionListener listener = new WandInteractionListener(this, wandStateManager, intersectionManager, persistence);
         Bukkit.getPluginManager().registerEvents(listener, this);
+        Bukkit.getPluginManager().registerEvents(new ItemFrameTrackingListener(), this);
+        Bukkit.getPluginManager().registerEvents(new WorldRegistryListener(), this);
+        Bukkit.getPluginManager().registerEvents(new ChunkActivityListener(animator), this);
+        Bukkit.getPluginManager().registerEvents(new ClientRenderListener(animator), this);
 
         // 8. Start the traffic light animator
         getLogger().info("Starting traffic light animator...");
@@ -146,6 +162,12 @@ public class CtOSPlugin extends JavaPlugin {
             intersectionManager.clear();
         }
 
+        // 6. Drop parsed block data, cached head profiles, frame handles and world handles
+        BlockDataCache.clear();
+        ProfileCache.clear();
+        ItemFrameHandles.clear();
+        WorldRegistry.clear();
+
         getLogger().info("==============================================");
         getLogger().info("  ctOS Traffic Lights Plugin Disabled");
         getLogger().info("==============================================");
@@ -350,9 +372,23 @@ public class CtOSPlugin extends JavaPlugin {
         boolean debug = getConfig().getBoolean("debug", false);
         // Update debug flag in BlockStateData
         BlockStateData.setDebugEnabled(debug);
+        // Select the player head update path
+        BlockStateData.setSnapshotFreeSkulls(getConfig().getBoolean("rendering.snapshot-free-skulls", true));
+        // Select the brightness of lit display entities
+        DisplayStateData.setLitBrightnessOverride(getConfig().getInt("rendering.display-lit-brightness", -1));
+        // Resize the shared head profile cache
+        ProfileCache.setMaxSize(getConfig().getInt("cache.profile-cache-size", ProfileCache.DEFAULT_MAX_SIZE));
         // Update debug flag in BartRedstoneController
         if (bartRedstoneController != null) {
             bartRedstoneController.setDebugEnabled(debug);
         }
+        // Check the position index after each re-index in debug mode
+        if (intersectionManager != null) {
+            intersectionManager.setDebugChecks(debug);
+        }
+        // Apply a changed cycle mode
+        if (animator != null) {
+            animator.reloadConfig();
+        }
     }
 }
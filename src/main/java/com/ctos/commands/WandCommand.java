@@ -1,11 +1,26 @@
 package com.ctos.commands;
 
 import com.ctos.CtOSPlugin;
+import com.ctos.trafficlight.cycle.CoordinationGroup;
+import com.ctos.trafficlight.cycle.PhaseProgram;
+import com.ctos.trafficlight.model.BlockStateData;
 import com.ctos.trafficlight.model.Intersection;
+import com.ctos.trafficlight.model.DisplayElement;
+import com.ctos.trafficlight.model.DisplayStateData;
 import com.ctos.trafficlight.model.ItemFrameElement;
+import com.ctos.trafficlight.model.ItemFrameHandles;
+import com.ctos.trafficlight.model.ItemFrameStateData;
+import com.ctos.trafficlight.model.ProgramPhase;
+import com.ctos.trafficlight.model.TimingConfiguration;
 import com.ctos.trafficlight.model.TrafficLightElement;
+import com.ctos.trafficlight.render.ClientRenderer;
+import com.ctos.trafficlight.render.RenderQueue;
+import com.ctos.trafficlight.service.ElementStateIndex;
 import com.ctos.trafficlight.service.IntersectionManager;
 import com.ctos.trafficlight.service.IntersectionPersistence;
+import com.ctos.trafficlight.service.ProximityCuller;
+import com.ctos.trafficlight.service.TrafficLightAnimator;
+import com.ctos.trafficlight.service.WriteVolumeTracker;
 import com.ctos.trafficlight.state.SetupSession;
 import com.ctos.trafficlight.state.WandState;
 import com.ctos.trafficlight.state.WandStateManager;
@@ -13,7 +28,11 @@ import com.ctos.traincarts.model.BartStationConfig;
 import com.ctos.traincarts.service.BartStationManager;
 import com.ctos.traincarts.service.BartStationPersistence;
 import com.ctos.traincarts.state.BartSetupSession;
+import com.ctos.util.BlockDataCache;
+import com.ctos.util.ProfileCache;
+import com.ctos.util.WorldRegistry;
 import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.suggestion.Suggestions;
@@ -32,11 +51,13 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import com.ctos.trafficlight.model.BlockPosition;
 import com.ctos.trafficlight.model.TrafficLightSide;
@@ -46,6 +67,8 @@ import com.ctos.trafficlight.model.LightPhase;
  * Handles all ctOS commands
  */
 public class WandCommand {
+    private static final Logger LOGGER = Logger.getLogger("ctOS");
+
     private final CtOSPlugin plugin;
     private final WandStateManager wandStateManager;
     private final IntersectionManager intersectionManager;
@@ -138,12 +161,126 @@ public class WandCommand {
                             return Command.SINGLE_SUCCESS;
                         })
                 )
+                .then(Commands.literal("stats")
+                        .executes(context -> {
+                            handleStats(context.getSource().getSender());
+                            return Command.SINGLE_SUCCESS;
+                        })
+                )
+                .then(buildGroupSubcommand())
+                .then(Commands.literal("program")
+                        .then(Commands.argument("identifier", StringArgumentType.string())
+                                .suggests(this::intersectionSuggestions)
+                                .then(Commands.argument("phases", StringArgumentType.greedyString())
+                                        .executes(context -> {
+                                            handleProgram(context.getSource().getSender(),
+                                                    context.getArgument("identifier", String.class),
+                                                    context.getArgument("phases", String.class));
+                                            return Command.SINGLE_SUCCESS;
+                                        })
+                                )
+                                .executes(context -> {
+                                    handleProgram(context.getSource().getSender(),
+                                            context.getArgument("identifier", String.class), null);
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                        )
+                )
                 .executes(context -> {
                     sendHelp(context.getSource().getSender());
                     return Command.SINGLE_SUCCESS;
                 });
     }
 
+    /**
+     * Builds the coordination group subcommand tree
+     */
+    private com.mojang.brigadier.builder.LiteralArgumentBuilder<CommandSourceStack> buildGroupSubcommand() {
+        return Commands.literal("group")
+                .then(Commands.literal("list")
+                        .executes(context -> {
+                            handleGroupList(context.getSource().getSender());
+                            return Command.SINGLE_SUCCESS;
+                        })
+                )
+                .then(Commands.literal("join")
+                        .then(Commands.argument("group", StringArgumentType.string())
+                                .suggests(this::groupSuggestions)
+                                .then(Commands.argument("identifier", StringArgumentType.string())
+                                        .suggests(this::intersectionSuggestions)
+                                        .then(Commands.argument("offset", IntegerArgumentType.integer(0))
+                                                .executes(context -> {
+                                                    handleGroupJoin(context.getSource().getSender(),
+                                                            context.getArgument("group", String.class),
+                                                            context.getArgument("identifier", String.class),
+                                                            context.getArgument("offset", Integer.class));
+                                                    return Command.SINGLE_SUCCESS;
+                                                })
+                                        )
+                                        .executes(context -> {
+                                            handleGroupJoin(context.getSource().getSender(),
+                                                    context.getArgument("group", String.class),
+                                                    context.getArgument("identifier", String.class), null);
+                                            return Command.SINGLE_SUCCESS;
+                                        })
+                                )
+                        )
+                )
+                .then(Commands.literal("leave")
+                        .then(Commands.argument("identifier", StringArgumentType.string())
+                                .suggests(this::intersectionSuggestions)
+                                .executes(context -> {
+                                    handleGroupLeave(context.getSource().getSender(), context.getArgument("identifier", String.class));
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                        )
+                )
+                .then(Commands.literal("retime")
+                        .then(Commands.argument("group", StringArgumentType.string())
+                                .suggests(this::groupSuggestions)
+                                .then(Commands.argument("timing", StringArgumentType.greedyString())
+                                        .executes(context -> {
+                                            handleGroupRetime(context.getSource().getSender(),
+                                                    context.getArgument("group", String.class),
+                                                    context.getArgument("timing", String.class));
+                                            return Command.SINGLE_SUCCESS;
+                                        })
+                                )
+                        )
+                )
+                .then(Commands.literal("pause")
+                        .then(Commands.argument("group", StringArgumentType.string())
+                                .suggests(this::groupSuggestions)
+                                .executes(context -> {
+                                    handleGroupClock(context.getSource().getSender(), context.getArgument("group", String.class), "pause");
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                        )
+                )
+                .then(Commands.literal("resume")
+                        .then(Commands.argument("group", StringArgumentType.string())
+                                .suggests(this::groupSuggestions)
+                                .executes(context -> {
+                                    handleGroupClock(context.getSource().getSender(), context.getArgument("group", String.class), "resume");
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                        )
+                )
+                .then(Commands.literal("resync")
+                        .then(Commands.argument("group", StringArgumentType.string())
+                                .suggests(this::groupSuggestions)
+                                .executes(context -> {
+                                    handleGroupClock(context.getSource().getSender(), context.getArgument("group", String.class), "resync");
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                        )
+                )
+                .executes(context -> {
+                    handleGroupList(context.getSource().getSender());
+                    return Command.SINGLE_SUCCESS;
+                });
+    }
+
     /**
      * Builds the BART station subcommand tree
      */
@@ -612,35 +749,16 @@ public class WandCommand {
 
     /**
      * Finds the nearest intersection to a player within maxDistance blocks
+     * Goes through the manager's chunk index, so only the chunks around the player are visited
      */
     private Intersection findNearestIntersection(Player player, double maxDistance) {
         Location playerLoc = player.getLocation();
-        Intersection nearest = null;
-        double nearestDistance = maxDistance;
-
-        for (Intersection intersection : intersectionManager.getAllIntersections()) {
-            Set<BlockPosition> blocks = intersection.getAllBlocks();
-
-            for (BlockPosition blockPos : blocks) {
-                // Check if same world
-                if (!blockPos.getWorldName().equals(playerLoc.getWorld().getName())) {
-                    continue;
-                }
-
-                // Calculate distance
-                double dx = blockPos.getX() - playerLoc.getX();
-                double dy = blockPos.getY() - playerLoc.getY();
-                double dz = blockPos.getZ() - playerLoc.getZ();
-                double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
-
-                if (distance < nearestDistance) {
-                    nearestDistance = distance;
-                    nearest = intersection;
-                }
-            }
+        int worldId = WorldRegistry.lookup(playerLoc.getWorld().getName());
+        if (worldId < 0) {
+            return null; // No traffic lights in this world
         }
-
-        return nearest;
+        return intersectionManager.findNearest(worldId,
+                playerLoc.getX(), playerLoc.getY(), playerLoc.getZ(), maxDistance);
     }
 
     /**
@@ -660,9 +778,9 @@ public class WandCommand {
         int sideIndex = 0;
         for (TrafficLightSide side : intersection.getSides()) {
             sideIndex++;
-            int redBlocks = side.getLightBlocks(LightPhase.RED).size();
-            int orangeBlocks = side.getLightBlocks(LightPhase.ORANGE).size();
-            int greenBlocks = side.getLightBlocks(LightPhase.GREEN).size();
+            int redBlocks = side.getLightElements(LightPhase.RED).size();
+            int orangeBlocks = side.getLightElements(LightPhase.ORANGE).size();
+            int greenBlocks = side.getLightElements(LightPhase.GREEN).size();
 
             sender.sendMessage(Component.text("  Side " + sideIndex + " (" + side.getDirection() + "): ").color(NamedTextColor.YELLOW)
                     .append(Component.text(redBlocks + "R ").color(NamedTextColor.RED))
@@ -684,6 +802,16 @@ public class WandCommand {
                 } else {
                     elementInfo = "Item Frame - Empty";
                 }
+            } else if (neutralElement instanceof DisplayElement de && de.getDisplayState() != null) {
+                DisplayStateData displayState = de.getDisplayState();
+                var serializedItem = displayState.getSerializedItem();
+                if (displayState.isBlockDisplay()) {
+                    elementInfo = "Block Display - " + displayState.getBlockDataString();
+                } else if (serializedItem != null && serializedItem.containsKey("type")) {
+                    elementInfo = "Item Display - " + serializedItem.get("type");
+                } else {
+                    elementInfo = "Item Display - Empty";
+                }
             }
             sender.sendMessage(Component.text("Neutral: ").color(NamedTextColor.GRAY)
                     .append(Component.text(elementInfo).color(NamedTextColor.WHITE)));
@@ -702,6 +830,26 @@ public class WandCommand {
                     .append(Component.text("Gap=" + intersection.getTiming().getAllRedGapTicks() + "t")
                             .color(NamedTextColor.RED)));
         }
+
+        // Display coordination group
+        TrafficLightAnimator animator = plugin.getAnimator();
+        if (intersection.getCoordinationGroup() != null) {
+            sender.sendMessage(Component.text("Group: ").color(NamedTextColor.GRAY)
+                    .append(Component.text(intersection.getCoordinationGroup() + " (offset "
+                            + CoordinationGroup.getMemberOffset(intersection) + "t)").color(NamedTextColor.WHITE)));
+        }
+
+        // Display current phase
+        PhaseProgram program = animator.getProgram(intersection);
+        int phase = animator.getCurrentPhase(intersection);
+        if (program != null && phase >= 0) {
+            long remaining = animator.getTimeRemainingInPhase(intersection);
+            sender.sendMessage(Component.text("Phase: ").color(NamedTextColor.GRAY)
+                    .append(Component.text(program.getName(phase) + " (" + (phase + 1) + "/" + program.getPhaseCount()
+                            + (program.isCustom() ? ", custom program" : "") + ")" + (remaining < 0 ? " (paused)"
+                            : " (" + String.format("%.1f", remaining / 1000.0) + "s remaining)"))
+                            .color(NamedTextColor.WHITE)));
+        }
     }
 
     /**
@@ -782,9 +930,9 @@ public class WandCommand {
 
         int index = 1;
         for (TrafficLightSide side : intersection.getSides()) {
-            int r = side.getLightBlocks(LightPhase.RED).size();
-            int o = side.getLightBlocks(LightPhase.ORANGE).size();
-            int g = side.getLightBlocks(LightPhase.GREEN).size();
+            int r = side.getLightElements(LightPhase.RED).size();
+            int o = side.getLightElements(LightPhase.ORANGE).size();
+            int g = side.getLightElements(LightPhase.GREEN).size();
             player.sendMessage(Component.text("  " + index + ". " + side.getDirection() + " ")
                     .color(NamedTextColor.YELLOW)
                     .append(Component.text("(" + r + "R/" + o + "O/" + g + "G)").color(NamedTextColor.GRAY)));
@@ -846,6 +994,392 @@ public class WandCommand {
         return;
     }
 
+    /**
+     * Lists the coordination groups with animated members
+     */
+    private void handleGroupList(CommandSender sender) {
+        if (!sender.hasPermission("ctos.admin")) {
+            sender.sendMessage(Component.text("You don't have permission to manage coordination groups").color(NamedTextColor.RED));
+            return;
+        }
+
+        List<CoordinationGroup> groups = new ArrayList<>(plugin.getAnimator().getGroups());
+        if (groups.isEmpty()) {
+            sender.sendMessage(Component.text("No coordination groups. Use /ctos tl group join <group> <id> to create one").color(NamedTextColor.YELLOW));
+            return;
+        }
+
+        sender.sendMessage(Component.text("=== Coordination Groups (" + groups.size() + ") ===").color(NamedTextColor.GOLD));
+        for (CoordinationGroup group : groups) {
+            PhaseProgram program = group.getProgram();
+            sender.sendMessage(Component.text("- " + group.getName()).color(NamedTextColor.YELLOW)
+                    .append(Component.text(" (" + group.getMemberCount() + " intersections, " + group.getMembersByOffset().size()
+                            + " offsets, " + program.getPhaseCount() + " phases, "
+                            + String.format("%.1f", program.getCycleLength() / 20.0) + "s cycle)").color(NamedTextColor.GRAY))
+                    .append(group.isPaused() ? Component.text(" PAUSED").color(NamedTextColor.RED) : Component.empty()));
+        }
+    }
+
+    /**
+     * Adds an intersection to a coordination group, adopting the group's timing and phase program
+     * Refused when the group runs a custom program written for a different number of sides
+     * @param offsetTicks Shift from the group's shared clock, or null for none
+     */
+    private void handleGroupJoin(CommandSender sender, String groupName, String identifier, Integer offsetTicks) {
+        if (!sender.hasPermission("ctos.admin")) {
+            sender.sendMessage(Component.text("You don't have permission to manage coordination groups").color(NamedTextColor.RED));
+            return;
+        }
+
+        Intersection intersection = resolveIntersection(sender, identifier);
+        if (intersection == null) {
+            return;
+        }
+
+        Intersection reference = findGroupMember(groupName, intersection);
+        if (reference != null) {
+            List<ProgramPhase> phases = reference.getPhaseProgram();
+            if (phases != null && PhaseProgram.validate(phases, intersection.getSides().size()) != null) {
+                sender.sendMessage(Component.text("Group " + groupName + " runs a custom phase program for "
+                        + reference.getSides().size() + " sides, " + intersection.getName() + " has "
+                        + intersection.getSides().size()).color(NamedTextColor.RED));
+                return;
+            }
+            intersection.setTiming(copyTiming(reference.getTiming()));
+            intersection.setPhaseProgram(phases);
+        }
+        intersection.setCoordinationGroup(groupName);
+        intersection.setCycleOffsetTicks(offsetTicks);
+        if (saveAndRegister(sender, intersection)) {
+            sender.sendMessage(Component.text(intersection.getName() + " joined group " + groupName
+                    + (offsetTicks != null ? " with an offset of " + offsetTicks + " ticks" : "")).color(NamedTextColor.GREEN));
+        }
+    }
+
+    /**
+     * Finds a member of a coordination group other than an intersection
+     * @return The member, or null if the intersection is alone in the group
+     */
+    private Intersection findGroupMember(String groupName, Intersection except) {
+        for (Intersection member : intersectionManager.getAllIntersections()) {
+            if (member != except && groupName.equals(member.getCoordinationGroup())) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes an intersection out of its coordination group; it gets its own cycle and a new offset
+     */
+    private void handleGroupLeave(CommandSender sender, String identifier) {
+        if (!sender.hasPermission("ctos.admin")) {
+            sender.sendMessage(Component.text("You don't have permission to manage coordination groups").color(NamedTextColor.RED));
+            return;
+        }
+
+        Intersection intersection = resolveIntersection(sender, identifier);
+        if (intersection == null) {
+            return;
+        }
+        String groupName = intersection.getCoordinationGroup();
+        if (groupName == null) {
+            sender.sendMessage(Component.text(intersection.getName() + " is not in a coordination group").color(NamedTextColor.YELLOW));
+            return;
+        }
+
+        intersection.setCoordinationGroup(null);
+        intersection.setCycleOffsetTicks(null);
+        if (saveAndRegister(sender, intersection)) {
+            sender.sendMessage(Component.text(intersection.getName() + " left group " + groupName).color(NamedTextColor.GREEN));
+        }
+    }
+
+    /**
+     * Changes the timing of every member of a coordination group at once
+     * Format: "green,orange,pedestrian,gap" in seconds, like the setup wand
+     */
+    private void handleGroupRetime(CommandSender sender, String groupName, String input) {
+        if (!sender.hasPermission("ctos.admin")) {
+            sender.sendMessage(Component.text("You don't have permission to manage coordination groups").color(NamedTextColor.RED));
+            return;
+        }
+
+        TimingConfiguration timing;
+        try {
+            String[] parts = input.split(",");
+            if (parts.length != 4) {
+                throw new NumberFormatException();
+            }
+            timing = new TimingConfiguration(
+                    Integer.parseInt(parts[0].trim()) * 20,
+                    Integer.parseInt(parts[1].trim()) * 20,
+                    Integer.parseInt(parts[2].trim()) * 20,
+                    Integer.parseInt(parts[3].trim()) * 20);
+        } catch (NumberFormatException e) {
+            sender.sendMessage(Component.text("Usage: /ctos tl group retime <group> <green,orange,pedestrian,gap> (seconds, e.g. 10,3,7,1)")
+                    .color(NamedTextColor.RED));
+            return;
+        }
+
+        int members = 0;
+        for (Intersection intersection : intersectionManager.getAllIntersections()) {
+            if (!groupName.equals(intersection.getCoordinationGroup())) {
+                continue;
+            }
+            intersection.setTiming(copyTiming(timing));
+            try {
+                intersectionPersistence.saveIntersection(intersection);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Failed to save intersection", e);
+                sender.sendMessage(Component.text("Error saving " + intersection.getName() + ": " + e.getMessage()).color(NamedTextColor.RED));
+            }
+            members++;
+        }
+        if (members == 0) {
+            sender.sendMessage(Component.text("No intersection belongs to group " + groupName).color(NamedTextColor.RED));
+            return;
+        }
+
+        plugin.getAnimator().retimeGroup(groupName);
+        sender.sendMessage(Component.text("Retimed group " + groupName + " (" + members + " intersections)").color(NamedTextColor.GREEN));
+    }
+
+    /**
+     * Pauses, resumes or resyncs the shared clock of a coordination group
+     */
+    private void handleGroupClock(CommandSender sender, String groupName, String action) {
+        if (!sender.hasPermission("ctos.admin")) {
+            sender.sendMessage(Component.text("You don't have permission to manage coordination groups").color(NamedTextColor.RED));
+            return;
+        }
+
+        TrafficLightAnimator animator = plugin.getAnimator();
+        boolean found = switch (action) {
+            case "pause" -> animator.pauseGroup(groupName);
+            case "resume" -> animator.resumeGroup(groupName);
+            default -> animator.resyncGroup(groupName);
+        };
+        if (!found) {
+            sender.sendMessage(Component.text("No animated coordination group named " + groupName).color(NamedTextColor.RED));
+            return;
+        }
+        String done = switch (action) {
+            case "pause" -> "Paused";
+            case "resume" -> "Resumed";
+            default -> "Resynced";
+        };
+        sender.sendMessage(Component.text(done + " group " + groupName).color(NamedTextColor.GREEN));
+    }
+
+    /**
+     * Shows or replaces the phase program of an intersection
+     * @param input The phase table (see PhaseProgram.parse), "default" to go back to the NS/EW program,
+     *              or null to show the current program
+     */
+    private void handleProgram(CommandSender sender, String identifier, String input) {
+        if (!sender.hasPermission("ctos.admin")) {
+            sender.sendMessage(Component.text("You don't have permission to edit phase programs").color(NamedTextColor.RED));
+            return;
+        }
+
+        Intersection intersection = resolveIntersection(sender, identifier);
+        if (intersection == null) {
+            return;
+        }
+
+        if (input == null) {
+            PhaseProgram program = plugin.getAnimator().getProgram(intersection);
+            if (program == null) {
+                program = PhaseProgram.compile(intersection);
+            }
+            sender.sendMessage(Component.text("=== Phase program: " + intersection.getName()
+                    + (program.isCustom() ? " (custom)" : " (default)") + " ===").color(NamedTextColor.GOLD));
+            for (int p = 0; p < program.getPhaseCount(); p++) {
+                sender.sendMessage(Component.text((p + 1) + ". " + program.describe(p)).color(NamedTextColor.GRAY));
+            }
+            sender.sendMessage(Component.text("Format: name:seconds:lights[:walk];... with one letter per side (lights R/O/G, walk G/R)")
+                    .color(NamedTextColor.DARK_GRAY));
+            return;
+        }
+
+        List<ProgramPhase> previous = intersection.getPhaseProgram();
+        if (input.trim().equalsIgnoreCase("default")) {
+            intersection.setPhaseProgram(null);
+        } else {
+            try {
+                intersection.setPhaseProgram(PhaseProgram.parse(input, intersection.getSides().size()));
+            } catch (IllegalArgumentException e) {
+                sender.sendMessage(Component.text("Invalid phase program: " + e.getMessage()).color(NamedTextColor.RED));
+                return;
+            }
+        }
+
+        // Members of a group share its clock, so their programs must stay compatible with the others'
+        String groupName = intersection.getCoordinationGroup();
+        Intersection reference = groupName != null ? findGroupMember(groupName, intersection) : null;
+        if (reference != null && !PhaseProgram.compile(reference).isCompatibleWith(PhaseProgram.compile(intersection))) {
+            intersection.setPhaseProgram(previous);
+            sender.sendMessage(Component.text(intersection.getName() + " is in group " + groupName
+                    + ", whose members run a different phase program; leave the group first").color(NamedTextColor.RED));
+            return;
+        }
+        if (saveAndRegister(sender, intersection)) {
+            PhaseProgram program = plugin.getAnimator().getProgram(intersection);
+            sender.sendMessage(Component.text("Phase program of " + intersection.getName() + " set"
+                    + (program != null ? " (" + program.getPhaseCount() + " phases, "
+                    + String.format("%.1f", program.getCycleLength() / 20.0) + "s cycle)" : ""))
+                    .color(NamedTextColor.GREEN));
+        }
+    }
+
+    /**
+     * Saves an intersection and re-registers it with the animator
+     * @return false if saving failed (the sender was told)
+     */
+    private boolean saveAndRegister(CommandSender sender, Intersection intersection) {
+        try {
+            intersectionPersistence.saveIntersection(intersection);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to save intersection", e);
+            sender.sendMessage(Component.text("Error saving intersection: " + e.getMessage()).color(NamedTextColor.RED));
+            return false;
+        }
+        plugin.getAnimator().registerIntersection(intersection);
+        return true;
+    }
+
+    private static TimingConfiguration copyTiming(TimingConfiguration timing) {
+        return new TimingConfiguration(timing.getGreenDurationTicks(), timing.getOrangeDurationTicks(),
+                timing.getPedestrianGreenDurationTicks(), timing.getAllRedGapTicks());
+    }
+
+    /**
+     * Finds an intersection by ID or name, telling the sender when there is none or several
+     * @return The intersection, or null
+     */
+    private Intersection resolveIntersection(CommandSender sender, String identifier) {
+        try {
+            UUID id = UUID.fromString(identifier);
+            Intersection intersection = intersectionManager.getIntersection(id).orElse(null);
+            if (intersection == null) {
+                sender.sendMessage(Component.text("Intersection not found").color(NamedTextColor.RED));
+            }
+            return intersection;
+        } catch (IllegalArgumentException e) {
+            List<Intersection> matches = intersectionManager.findIntersectionsByName(identifier);
+            if (matches.isEmpty()) {
+                sender.sendMessage(Component.text("No intersection found with that ID or name").color(NamedTextColor.RED));
+                return null;
+            }
+            if (matches.size() > 1) {
+                sender.sendMessage(Component.text("Multiple intersections match that name. Use the ID instead:").color(NamedTextColor.YELLOW));
+                for (Intersection match : matches) {
+                    sender.sendMessage(Component.text("- " + match.getName() + " (" + match.getId() + ")").color(NamedTextColor.GRAY));
+                }
+                return null;
+            }
+            return matches.getFirst();
+        }
+    }
+
+    /**
+     * Shows rendering cache and performance counters
+     */
+    private void handleStats(CommandSender sender) {
+        if (!sender.hasPermission("ctos.admin")) {
+            sender.sendMessage(Component.text("You don't have permission to view statistics").color(NamedTextColor.RED));
+            return;
+        }
+
+        sender.sendMessage(Component.text("=== ctOS Traffic Light Stats ===").color(NamedTextColor.GOLD));
+
+        TrafficLightAnimator animator = plugin.getAnimator();
+        sender.sendMessage(Component.text("Animator: " + animator.getActiveCycleCount() + " cycles, "
+                + animator.getScheduledPhaseChanges() + " scheduled, "
+                + animator.getPhaseChanges() + " phase changes, " + animator.getSkippedChanges()
+                + " skipped in unloaded chunks, " + animator.getResyncs() + " resyncs on load").color(NamedTextColor.GRAY));
+        if (!animator.getGroups().isEmpty()) {
+            int members = 0;
+            for (CoordinationGroup group : animator.getGroups()) {
+                members += group.getMemberCount();
+            }
+            sender.sendMessage(Component.text("Coordination groups: " + animator.getGroups().size() + " groups, "
+                    + members + " member intersections, " + animator.getGroupEvaluations() + " shared clock reads")
+                    .color(NamedTextColor.GRAY));
+        }
+        ElementStateIndex elements = animator.getAppliedStates();
+        sender.sendMessage(Component.text("Element index: " + elements.size() + " outputs indexed, "
+                + elements.capacity() + " capacity").color(NamedTextColor.GRAY));
+        sender.sendMessage(Component.text("Chunk index: " + intersectionManager.getIndexedChunkCount()
+                + " chunks hold elements of " + intersectionManager.getIntersectionCount() + " intersections")
+                .color(NamedTextColor.GRAY));
+        List<String> indexProblems = intersectionManager.verifyIndex();
+        for (String problem : indexProblems) {
+            LOGGER.warning("Position index: " + problem);
+        }
+        sender.sendMessage(Component.text("Position index: " + intersectionManager.getIndexedPositionCount() + " positions, "
+                + (indexProblems.isEmpty() ? "consistent" : indexProblems.size() + " problems (see console)"))
+                .color(indexProblems.isEmpty() ? NamedTextColor.GRAY : NamedTextColor.RED));
+        sender.sendMessage(Component.text("Output writes: " + animator.getVehicleWrites() + " vehicle, "
+                + animator.getPedestrianWrites() + " pedestrian (" + animator.getPedestrianUnchanged()
+                + " pedestrian outputs unchanged on full renders)").color(NamedTextColor.GRAY));
+        ProximityCuller culler = animator.getCuller();
+        if (culler.isEnabled()) {
+            sender.sendMessage(Component.text("Detail tiers: " + culler.count(ProximityCuller.Tier.NEAR) + " near, "
+                    + culler.count(ProximityCuller.Tier.FAR) + " far, " + culler.count(ProximityCuller.Tier.HIDDEN)
+                    + " hidden; " + animator.getCulledChanges() + " changes culled, " + animator.getCoalescedChanges()
+                    + " coalesced, " + animator.getCatchUpRenders() + " catch-up renders").color(NamedTextColor.GRAY));
+        }
+        RenderQueue queue = animator.getRenderQueue();
+        sender.sendMessage(Component.text("Write queue: " + queue.size() + " pending, " + queue.getEnqueued()
+                + " queued, " + queue.getSuperseded() + " superseded, " + queue.getWritten() + " written, " + queue.getDropped()
+                + " dropped in unloaded chunks (last tick "
+                + queue.getLastDrained() + " within " + String.format("%.1f", queue.getLastBudgetMillis())
+                + "ms budget)").color(NamedTextColor.GRAY));
+        ClientRenderer client = animator.getClientRenderer();
+        if (client.isEnabled()) {
+            sender.sendMessage(Component.text("Client-side rendering: " + client.getPendingCount() + " pending, "
+                    + client.getBlockChanges() + " block changes in " + client.getSectionBatches() + " section batches, "
+                    + client.getSkullUpdates() + " head updates, " + client.getChunkSends() + " chunk full-state sends, "
+                    + client.getNeutralWrites() + " world blocks neutralized").color(NamedTextColor.GRAY));
+        }
+        WriteVolumeTracker volume = animator.getWriteVolume();
+        sender.sendMessage(Component.text("Last " + volume.getWindowTicks() + " ticks: peak "
+                + volume.getWindowPeakWrites() + " writes / " + volume.getWindowPeakChanges() + " phase changes per tick, "
+                + String.format("%.2f", volume.getWindowAverageWrites()) + " writes per tick on average, "
+                + volume.getWindowBusyTicks() + " ticks with writes").color(NamedTextColor.GRAY));
+        sender.sendMessage(Component.text("All time: peak " + volume.getPeakWrites() + " writes / "
+                + volume.getPeakChanges() + " phase changes per tick, " + volume.getTotalWrites() + " writes, "
+                + volume.getDeferredChanges() + " changes deferred by the cap (scheduled peak "
+                + animator.getPeakReservedChanges() + " per tick)").color(NamedTextColor.GRAY));
+        if (volume.isAllocationTracked()) {
+            sender.sendMessage(Component.text("Animator allocation: " + String.format("%.0f", volume.getWindowAverageBytes())
+                    + " bytes per tick on average over the last " + volume.getWindowTicks() + " ticks, "
+                    + volume.getWindowAllocationFreeTicks() + " ticks allocation-free, peak "
+                    + volume.getPeakBytes() + " bytes").color(NamedTextColor.GRAY));
+        }
+
+        long hits = ProfileCache.getHits();
+        long misses = ProfileCache.getMisses();
+        long lookups = hits + misses;
+        String hitRate = lookups > 0 ? String.format("%.1f%%", hits * 100.0 / lookups) : "n/a";
+        sender.sendMessage(Component.text("Head profiles: " + ProfileCache.size() + "/" + ProfileCache.getMaxSize()
+                + " cached, " + hits + " hits, " + misses + " misses (" + hitRate + "), "
+                + ProfileCache.getEvictions() + " evicted").color(NamedTextColor.GRAY));
+        sender.sendMessage(Component.text("Parsed block states: " + BlockDataCache.size()).color(NamedTextColor.GRAY));
+        sender.sendMessage(Component.text("Head updates: " + BlockStateData.getHeadApplies() + ", tile entity writes: "
+                + BlockStateData.getTileEntityWrites() + ", unchanged profiles skipped: "
+                + BlockStateData.getSkippedProfileWrites()).color(NamedTextColor.GRAY));
+        sender.sendMessage(Component.text("Item frame handles: " + ItemFrameHandles.size() + " cached, "
+                + ItemFrameHandles.getHits() + " hits, " + ItemFrameHandles.getMisses() + " chunk scans, "
+                + ItemFrameHandles.getDuplicatesRemoved() + " duplicates removed").color(NamedTextColor.GRAY));
+        sender.sendMessage(Component.text("Item frame property writes: " + ItemFrameStateData.getPropertyWrites()
+                + ", unchanged skipped: " + ItemFrameStateData.getSkippedPropertyWrites()).color(NamedTextColor.GRAY));
+        sender.sendMessage(Component.text("Display property writes: " + DisplayStateData.getPropertyWrites()
+                + ", unchanged skipped: " + DisplayStateData.getSkippedPropertyWrites()).color(NamedTextColor.GRAY));
+    }
+
     /**
      * Sends main ctOS help message
      */
@@ -878,9 +1412,24 @@ public class WandCommand {
                 .append(Component.text(" - Cancel current setup").color(NamedTextColor.GRAY)));
         sender.sendMessage(Component.text("/ctos tl reload").color(NamedTextColor.YELLOW)
                 .append(Component.text(" - Reload configuration").color(NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/ctos tl stats").color(NamedTextColor.YELLOW)
+                .append(Component.text(" - Show rendering statistics").color(NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/ctos tl program <id> [phases|default]").color(NamedTextColor.YELLOW)
+                .append(Component.text(" - Show or set an intersection's phase program").color(NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/ctos tl group <list|join|leave|retime|pause|resume|resync>").color(NamedTextColor.YELLOW)
+                .append(Component.text(" - Manage coordination groups").color(NamedTextColor.GRAY)));
     }
 
 
+    private CompletableFuture<Suggestions> groupSuggestions(CommandContext<CommandSourceStack> ctx, SuggestionsBuilder builder) {
+        this.intersectionManager.getAllIntersections().stream()
+                .map(Intersection::getCoordinationGroup)
+                .filter(group -> group != null)
+                .distinct()
+                .forEach(builder::suggest);
+        return builder.buildFuture();
+    }
+
     private CompletableFuture<Suggestions> intersectionSuggestions(CommandContext<CommandSourceStack> ctx, SuggestionsBuilder builder) {
         this.intersectionManager.getAllIntersections().forEach(intersection -> {
             builder.suggest(intersection.getId().toString());
@@ -0,0 +1,59 @@
+package com.ctos.listeners;
+
+import com.ctos.trafficlight.service.TrafficLightAnimator;
+import com.ctos.util.WorldRegistry;
+import org.bukkit.Chunk;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Feeds chunk and entity load events to the animator's chunk activity tracker
+ * Events from worlds without traffic lights are ignored
+ */
+public class ChunkActivityListener implements Listener {
+    private final TrafficLightAnimator animator;
+
+    public ChunkActivityListener(TrafficLightAnimator animator) {
+        this.animator = animator;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        int world = WorldRegistry.lookup(chunk.getWorld().getName());
+        if (world >= 0) {
+            animator.getChunkActivity().onChunkLoad(world, chunk.getChunkKey());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Chunk chunk = event.getChunk();
+        int world = WorldRegistry.lookup(chunk.getWorld().getName());
+        if (world >= 0) {
+            animator.getChunkActivity().onChunkUnload(world, chunk.getChunkKey());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        int world = WorldRegistry.lookup(chunk.getWorld().getName());
+        if (world >= 0) {
+            animator.getChunkActivity().onEntitiesLoad(world, chunk.getChunkKey());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        int world = WorldRegistry.lookup(event.getWorld().getName());
+        if (world >= 0) {
+            animator.getChunkActivity().onWorldUnload(world);
+        }
+    }
+}
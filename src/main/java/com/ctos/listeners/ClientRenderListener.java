@@ -0,0 +1,23 @@
+package com.ctos.listeners;
+
+import com.ctos.trafficlight.service.TrafficLightAnimator;
+import io.papermc.paper.event.packet.PlayerChunkLoadEvent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+/**
+ * Sends the client-side traffic light state of a chunk to players that start tracking it
+ */
+public class ClientRenderListener implements Listener {
+    private final TrafficLightAnimator animator;
+
+    public ClientRenderListener(TrafficLightAnimator animator) {
+        this.animator = animator;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChunkLoad(PlayerChunkLoadEvent event) {
+        animator.getClientRenderer().onPlayerChunkLoad(event.getPlayer(), event.getChunk());
+    }
+}
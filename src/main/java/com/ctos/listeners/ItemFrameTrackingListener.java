@@ -0,0 +1,34 @@
+package com.ctos.listeners;
+
+import com.ctos.trafficlight.model.ItemFrameHandles;
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.ItemFrame;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+
+/**
+ * Keeps the cached item frame handles in sync with the world
+ * A handle is dropped as soon as its entity is removed or its chunk unloads, so the
+ * next lookup falls back to scanning the chunk.
+ */
+public class ItemFrameTrackingListener implements Listener {
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityRemove(EntityRemoveFromWorldEvent event) {
+        if (event.getEntity() instanceof ItemFrame frame) {
+            ItemFrameHandles.forget(frame.getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesUnload(EntitiesUnloadEvent event) {
+        for (Entity entity : event.getEntities()) {
+            if (entity instanceof ItemFrame frame) {
+                ItemFrameHandles.forget(frame.getUniqueId());
+            }
+        }
+    }
+}
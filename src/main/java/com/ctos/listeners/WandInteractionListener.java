@@ -17,7 +17,12 @@ import io.papermc.paper.event.player.AsyncChatEvent;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.bukkit.Location;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.BlockDisplay;
+import org.bukkit.entity.Display;
+import org.bukkit.entity.ItemDisplay;
 import org.bukkit.entity.ItemFrame;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -39,6 +44,7 @@ import java.util.logging.Logger;
  */
 public class WandInteractionListener implements Listener {
     private static final Logger LOGGER = Logger.getLogger("ctOS");
+    private static final double DISPLAY_SEARCH_RADIUS = 1.5;
 
     private final CtOSPlugin plugin;
     private final WandStateManager wandStateManager;
@@ -85,10 +91,15 @@ public class WandInteractionListener implements Listener {
         SetupSession session = sessionOpt.get();
         session.touch(); // Update last interaction time
 
-        // Handle right-click (block selection)
+        // Handle right-click (block selection, or the nearest display entity when sneaking)
         if (event.getAction() == Action.RIGHT_CLICK_BLOCK) {
             event.setCancelled(true);
-            handleBlockSelection(player, session, event.getClickedBlock());
+            Display display = player.isSneaking() ? findNearestDisplay(event.getClickedBlock(), event.getBlockFace()) : null;
+            if (display != null) {
+                handleDisplaySelection(player, session, display);
+            } else {
+                handleBlockSelection(player, session, event.getClickedBlock());
+            }
         }
         // Handle left-click (confirmation)
         else if (event.getAction() == Action.LEFT_CLICK_AIR || event.getAction() == Action.LEFT_CLICK_BLOCK) {
@@ -249,6 +260,81 @@ public class WandInteractionListener implements Listener {
         }
     }
 
+    /**
+     * Finds the display entity closest to the clicked face of a block
+     * Displays have no hitbox, so they are picked by shift-right-clicking the block they sit in or against
+     */
+    private Display findNearestDisplay(Block block, BlockFace face) {
+        Location center = block.getRelative(face).getLocation().add(0.5, 0.5, 0.5);
+        Display nearest = null;
+        double nearestDistance = Double.MAX_VALUE;
+        for (Display display : center.getWorld().getNearbyEntitiesByType(Display.class, center, DISPLAY_SEARCH_RADIUS)) {
+            if (!(display instanceof ItemDisplay) && !(display instanceof BlockDisplay)) {
+                continue; // Text displays have nothing to switch
+            }
+            double distance = display.getLocation().distanceSquared(center);
+            if (distance < nearestDistance) {
+                nearest = display;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Handles display entity selection (shift-right-click)
+     */
+    private void handleDisplaySelection(Player player, SetupSession session, Display display) {
+        SetupStep step = session.getCurrentStep();
+        String shown;
+        if (display instanceof BlockDisplay blockDisplay) {
+            shown = blockDisplay.getBlock().getMaterial().name();
+        } else {
+            ItemStack displayed = ((ItemDisplay) display).getItemStack();
+            shown = displayed == null || displayed.getType().isAir() ? "empty" : displayed.getType().name();
+        }
+
+        switch (step) {
+            case SELECT_NEUTRAL_BLOCK:
+                session.getIntersectionInProgress().setNeutralElement(DisplayElement.capture(display));
+                player.sendMessage(Component.text("[ctOS] Neutral element set to display entity with: " + shown)
+                        .color(NamedTextColor.GREEN));
+
+                // Check if we're in edit mode
+                if (session.getIntersectionInProgress().getSides().size() > 0) {
+                    session.setCurrentStep(SetupStep.EDIT_MENU);
+                    session.sendPrompt(player);
+                } else {
+                    String direction = SetupSession.detectDirection(player.getLocation().getYaw());
+                    player.sendMessage(Component.text("[ctOS] Detected direction: " + direction + " (based on where you're looking)")
+                            .color(NamedTextColor.AQUA));
+
+                    session.advanceToNextStep();
+                    session.startNewSide(direction);
+                    session.advanceToNextStep();
+                    session.sendPrompt(player);
+                }
+                break;
+
+            case SELECT_RED_BLOCKS:
+            case SELECT_ORANGE_BLOCKS:
+            case SELECT_GREEN_BLOCKS:
+            case SELECT_PEDESTRIAN_GREEN:
+            case SELECT_PEDESTRIAN_RED:
+                session.addElementToBuffer(DisplayElement.capture(display));
+
+                int count = session.getTotalBufferSize();
+                player.sendMessage(Component.text("[ctOS] Display entity selected (" + shown + ", " + count + " total). Left-click to confirm.")
+                        .color(NamedTextColor.YELLOW));
+                break;
+
+            default:
+                player.sendMessage(Component.text("[ctOS] Cannot select display entities at this step.")
+                        .color(NamedTextColor.RED));
+                break;
+        }
+    }
+
     /**
      * Handles block selection (right-click)
      */
@@ -285,12 +371,7 @@ public class WandInteractionListener implements Listener {
             case SELECT_GREEN_BLOCKS:
             case SELECT_PEDESTRIAN_GREEN:
             case SELECT_PEDESTRIAN_RED:
-                // Add to buffer (both legacy and element-based)
-                BlockPosition pos = BlockPosition.fromLocation(block.getLocation());
-                BlockStateData state = BlockStateData.capture(block);
-                session.addToBuffer(pos, state);
-
-                // Also add as element
+                // Add to buffer as a block element
                 BlockElement blockElement = BlockElement.capture(block);
                 session.addElementToBuffer(blockElement);
 
@@ -603,6 +684,9 @@ public class WandInteractionListener implements Listener {
             persistence.saveIntersection(intersection);
             if (!this.intersectionManager.hasIntersection(intersection.getId())) {
                 this.intersectionManager.registerIntersection(intersection);
+            } else {
+                // Sides may have changed: refresh the block and chunk indexes
+                this.intersectionManager.updateBlockIndex(intersection);
             }
 
             plugin.getAnimator().registerIntersection(intersection);
@@ -0,0 +1,174 @@
+package com.ctos.trafficlight.cycle;
+
+import com.ctos.trafficlight.model.Intersection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Named group of intersections switching on one shared clock
+ *
+ * Members keep their own render plans but have no cycle of their own: the group's program runs
+ * on the shared clock, and its phase is evaluated once per distinct member offset (each member
+ * shows the phase the clock showed that many ticks earlier) and fanned out to every member with
+ * that offset. Members must run compatible programs (see PhaseProgram#isCompatibleWith).
+ * The clock is a pure function of the tick, like EPOCH cycles, shifted by the time spent paused.
+ * Not thread-safe: use from the main thread only.
+ */
+public final class CoordinationGroup implements PhaseClock {
+    private final String name;
+    private PhaseProgram program;
+    private final Map<Integer, List<Intersection>> membersByOffset; // member offset -> members
+    private long clockShift; // Ticks the clock lags behind the tick it is read at (time spent paused)
+    private boolean paused;
+    private long pausedAt;
+    private long scheduledTick = Long.MIN_VALUE; // Due tick of the live wheel entry, older entries are stale
+
+    public CoordinationGroup(String name, PhaseProgram program) {
+        this.name = name;
+        this.program = program;
+        this.membersByOffset = new TreeMap<>();
+    }
+
+    /**
+     * Gets the offset a member is shifted by from the shared clock
+     */
+    public static int getMemberOffset(Intersection intersection) {
+        Integer offset = intersection.getCycleOffsetTicks();
+        return offset != null ? offset : 0;
+    }
+
+    public void addMember(Intersection intersection) {
+        List<Intersection> members = membersByOffset.computeIfAbsent(getMemberOffset(intersection), offset -> new ArrayList<>());
+        if (!members.contains(intersection)) {
+            members.add(intersection);
+        }
+    }
+
+    /**
+     * Removes a member, whatever offset it was added with
+     */
+    public void removeMember(Intersection intersection) {
+        membersByOffset.values().removeIf(members -> members.remove(intersection) && members.isEmpty());
+    }
+
+    public boolean isEmpty() {
+        return membersByOffset.isEmpty();
+    }
+
+    public int getMemberCount() {
+        int count = 0;
+        for (List<Intersection> members : membersByOffset.values()) {
+            count += members.size();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the members grouped by offset
+     */
+    public Map<Integer, List<Intersection>> getMembersByOffset() {
+        return Collections.unmodifiableMap(membersByOffset);
+    }
+
+    /**
+     * Gets the tick of the shared clock at a tick (frozen while paused)
+     */
+    private long clockTick(long currentTick) {
+        return (paused ? pausedAt : currentTick) - clockShift;
+    }
+
+    /**
+     * Gets the index of the phase members with an offset show at a tick
+     */
+    public int getPhase(int offset, long currentTick) {
+        return program.phaseAt(clockTick(currentTick) - offset);
+    }
+
+    /**
+     * Gets the tick on which the phase members with an offset show at a tick ends
+     * @return The tick, or Long.MAX_VALUE while paused
+     */
+    public long getNextChangeTick(int offset, long currentTick) {
+        if (paused) {
+            return Long.MAX_VALUE;
+        }
+        return currentTick + program.ticksRemaining(clockTick(currentTick) - offset);
+    }
+
+    @Override
+    public long getNextChangeTick(long currentTick) {
+        long next = Long.MAX_VALUE;
+        for (int offset : membersByOffset.keySet()) {
+            next = Math.min(next, getNextChangeTick(offset, currentTick));
+        }
+        return next;
+    }
+
+    /**
+     * Gets the time left in the phase members with an offset show at a tick, in milliseconds
+     * @return The time, or -1 while paused
+     */
+    public long getTimeRemainingInPhase(int offset, long currentTick) {
+        if (paused) {
+            return -1;
+        }
+        return (getNextChangeTick(offset, currentTick) - currentTick) * 50;
+    }
+
+    /**
+     * Freezes the shared clock: members keep showing their current phase
+     */
+    public void pause(long currentTick) {
+        if (!paused) {
+            paused = true;
+            pausedAt = currentTick;
+        }
+    }
+
+    /**
+     * Restarts the shared clock where it was frozen
+     */
+    public void resume(long currentTick) {
+        if (paused) {
+            clockShift += currentTick - pausedAt;
+            paused = false;
+        }
+    }
+
+    /**
+     * Records the due tick of the wheel entry that is now live
+     */
+    public void markScheduled(long dueTick) {
+        this.scheduledTick = dueTick;
+    }
+
+    /**
+     * Checks if a wheel entry fired with a due tick is the live one
+     */
+    public boolean isScheduledFor(long dueTick) {
+        return scheduledTick == dueTick;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the program the shared clock runs (taken from the first member)
+     */
+    public PhaseProgram getProgram() {
+        return program;
+    }
+
+    public void setProgram(PhaseProgram program) {
+        this.program = program;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+}
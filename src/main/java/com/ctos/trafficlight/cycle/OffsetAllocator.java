@@ -0,0 +1,138 @@
+package com.ctos.trafficlight.cycle;
+
+import com.ctos.trafficlight.model.Intersection;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Spreads the phase boundaries of all cycles across ticks
+ *
+ * For every cycle length in use, the allocator counts how many phase changes land on each tick
+ * of the cycle. An intersection without an offset gets the offset whose phase boundaries hit
+ * the least busy ticks, so intersections sharing the same timing no longer flip together.
+ * Members of a coordination group are counted but never assigned an offset.
+ * Not thread-safe: use from the main thread only.
+ */
+public class OffsetAllocator {
+    private final Map<Integer, int[]> occupancy; // cycle length -> phase changes per tick of the cycle
+    private final Map<Intersection, Reservation> reservations;
+
+    private record Reservation(int cycleLength, int[] boundaries) {
+    }
+
+    public OffsetAllocator() {
+        this.occupancy = new HashMap<>();
+        this.reservations = new HashMap<>();
+    }
+
+    /**
+     * Reserves the phase boundaries of an intersection, assigning it an offset first if it has none
+     * Calling it again for the same intersection replaces its previous reservation.
+     * @param program The phase program the intersection runs
+     * @return true if a new offset was assigned (the intersection should be saved)
+     */
+    public boolean reserve(Intersection intersection, PhaseProgram program) {
+        release(intersection);
+
+        int cycleLength = program.getCycleLength();
+        int[] ticks = occupancy.computeIfAbsent(cycleLength, length -> new int[length]);
+        int[] starts = phaseStarts(program);
+
+        boolean assigned = false;
+        Integer offset = intersection.getCycleOffsetTicks();
+        if (offset == null && intersection.getCoordinationGroup() != null) {
+            offset = 0; // Group members switch together unless given an offset explicitly
+        } else if (offset == null) {
+            offset = findLeastBusyOffset(ticks, starts, Math.floorMod(intersection.getId().hashCode(), cycleLength));
+            intersection.setCycleOffsetTicks(offset);
+            assigned = true;
+        }
+
+        // A phase starting at cycle tick s is shown from global tick s + offset
+        int[] boundaries = new int[starts.length];
+        for (int i = 0; i < starts.length; i++) {
+            boundaries[i] = Math.floorMod(starts[i] + offset, cycleLength);
+            ticks[boundaries[i]]++;
+        }
+        reservations.put(intersection, new Reservation(cycleLength, boundaries));
+        return assigned;
+    }
+
+    /**
+     * Releases the phase boundaries of an intersection
+     */
+    public void release(Intersection intersection) {
+        Reservation reservation = reservations.remove(intersection);
+        if (reservation == null) {
+            return;
+        }
+        int[] ticks = occupancy.get(reservation.cycleLength());
+        for (int boundary : reservation.boundaries()) {
+            ticks[boundary]--;
+        }
+    }
+
+    /**
+     * Releases every reservation
+     */
+    public void clear() {
+        occupancy.clear();
+        reservations.clear();
+    }
+
+    /**
+     * Gets the highest number of phase changes reserved on a single tick
+     */
+    public int getPeakReservedChanges() {
+        int peak = 0;
+        for (int[] ticks : occupancy.values()) {
+            for (int count : ticks) {
+                peak = Math.max(peak, count);
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Finds the offset whose boundaries land on the least busy ticks
+     * Ties are broken by the lowest total load, then by distance from the preferred offset
+     */
+    private static int findLeastBusyOffset(int[] ticks, int[] starts, int preferred) {
+        int length = ticks.length;
+        int bestOffset = preferred;
+        int bestPeak = Integer.MAX_VALUE;
+        int bestTotal = Integer.MAX_VALUE;
+
+        for (int i = 0; i < length; i++) {
+            int offset = (preferred + i) % length;
+            int peak = 0;
+            int total = 0;
+            for (int start : starts) {
+                int load = ticks[(start + offset) % length];
+                peak = Math.max(peak, load);
+                total += load;
+            }
+            if (peak < bestPeak || (peak == bestPeak && total < bestTotal)) {
+                bestPeak = peak;
+                bestTotal = total;
+                bestOffset = offset;
+                if (peak == 0) {
+                    break; // Cannot do better than untouched ticks
+                }
+            }
+        }
+        return bestOffset;
+    }
+
+    /**
+     * Gets the tick of the cycle on which each phase starts
+     */
+    private static int[] phaseStarts(PhaseProgram program) {
+        int[] starts = new int[program.getPhaseCount()];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = program.getStart(i);
+        }
+        return starts;
+    }
+}
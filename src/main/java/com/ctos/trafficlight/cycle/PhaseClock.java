@@ -0,0 +1,13 @@
+package com.ctos.trafficlight.cycle;
+
+/**
+ * Anything the animator schedules phase changes for on its timing wheel
+ * Either the cycle of a single intersection or the shared clock of a coordination group.
+ */
+public sealed interface PhaseClock permits TrafficCycle, CoordinationGroup {
+
+    /**
+     * Gets the first tick after a tick on which a phase shown by this clock changes
+     */
+    long getNextChangeTick(long currentTick);
+}
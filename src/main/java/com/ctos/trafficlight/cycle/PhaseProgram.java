@@ -0,0 +1,335 @@
+package com.ctos.trafficlight.cycle;
+
+import com.ctos.trafficlight.model.Intersection;
+import com.ctos.trafficlight.model.LightPhase;
+import com.ctos.trafficlight.model.ProgramPhase;
+import com.ctos.trafficlight.model.TimingConfiguration;
+import com.ctos.trafficlight.model.TrafficLightSide;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Compiled phase program of an intersection: an ordered table of phases, each with a duration
+ * and the output of every side, flattened into primitive arrays
+ *
+ * Intersections without a custom program run the default one built from CyclePhase (NS/EW
+ * alternation with the intersection's timing, sides grouped by direction). Custom programs
+ * describe any layout the sides allow: 3-way and 5-way junctions, protected turns, pedestrian
+ * scrambles. Phases are referred to by index; a cycle runs them in order and wraps around.
+ * Immutable once compiled.
+ */
+public final class PhaseProgram {
+    private static final Logger LOGGER = Logger.getLogger("ctOS");
+    private static final LightPhase[] LIGHTS = LightPhase.values();
+
+    private final String[] names;
+    private final int[] durations; // Ticks, at least one
+    private final int[] starts; // Tick of the cycle each phase starts on
+    private final int cycleLength;
+    private final int sideCount;
+    private final byte[] vehicle; // [phase * sideCount + side] -> LightPhase ordinal
+    private final boolean[] pedestrianGreen; // [phase * sideCount + side]
+    private final boolean custom;
+
+    private PhaseProgram(String[] names, int[] durations, int sideCount, byte[] vehicle, boolean[] pedestrianGreen,
+                         boolean custom) {
+        this.names = names;
+        this.durations = durations;
+        this.sideCount = sideCount;
+        this.vehicle = vehicle;
+        this.pedestrianGreen = pedestrianGreen;
+        this.custom = custom;
+
+        this.starts = new int[durations.length];
+        int position = 0;
+        for (int p = 0; p < durations.length; p++) {
+            starts[p] = position;
+            position += durations[p];
+        }
+        this.cycleLength = position;
+    }
+
+    /**
+     * Compiles the program an intersection runs: its custom program if it has a valid one,
+     * the default NS/EW program otherwise
+     */
+    public static PhaseProgram compile(Intersection intersection) {
+        List<ProgramPhase> phases = intersection.getPhaseProgram();
+        int sideCount = intersection.getSides().size();
+        if (phases != null) {
+            String problem = validate(phases, sideCount);
+            if (problem == null) {
+                return fromTable(phases, sideCount);
+            }
+            LOGGER.warning("Phase program of intersection " + intersection.getName() + " is invalid (" + problem
+                    + "), using the default program");
+        }
+        return defaultProgram(intersection);
+    }
+
+    /**
+     * Builds the default program: the six CyclePhase phases with the intersection's timing
+     * Sides follow their direction group; sides with an unknown direction fall back to their index
+     */
+    public static PhaseProgram defaultProgram(Intersection intersection) {
+        CyclePhase[] phases = CyclePhase.values();
+        List<TrafficLightSide> sides = intersection.getSides();
+        TimingConfiguration timing = intersection.getTiming();
+        int sideCount = sides.size();
+
+        String[] names = new String[phases.length];
+        int[] durations = new int[phases.length];
+        byte[] vehicle = new byte[phases.length * sideCount];
+        boolean[] pedestrian = new boolean[phases.length * sideCount];
+
+        TrafficLightSide.DirectionGroup[] groups = new TrafficLightSide.DirectionGroup[sideCount];
+        for (int s = 0; s < sideCount; s++) {
+            groups[s] = sides.get(s).getDirectionGroup();
+            if (groups[s] == TrafficLightSide.DirectionGroup.UNKNOWN) {
+                LOGGER.warning("Side " + s + " (" + sides.get(s).getDirection() + ") of intersection " + intersection.getName()
+                        + " has an unknown direction, falling back to index-based phases");
+            }
+        }
+
+        for (CyclePhase phase : phases) {
+            int p = phase.ordinal();
+            names[p] = phase.name();
+            durations[p] = TrafficCycle.getPhaseDuration(timing, phase);
+            for (int s = 0; s < sideCount; s++) {
+                LightPhase light;
+                boolean walk;
+                if (groups[s] == TrafficLightSide.DirectionGroup.NORTH_SOUTH) {
+                    light = phase.getNsPhase();
+                    walk = phase.isNsPedestrianGreen();
+                } else if (groups[s] == TrafficLightSide.DirectionGroup.EAST_WEST) {
+                    light = phase.getEwPhase();
+                    walk = phase.isEwPedestrianGreen();
+                } else {
+                    light = phase.getPhaseForSide(s, sideCount);
+                    walk = phase.isPedestrianGreen(s, sideCount);
+                }
+                vehicle[p * sideCount + s] = (byte) light.ordinal();
+                pedestrian[p * sideCount + s] = walk;
+            }
+        }
+        return new PhaseProgram(names, durations, sideCount, vehicle, pedestrian, false);
+    }
+
+    private static PhaseProgram fromTable(List<ProgramPhase> phases, int sideCount) {
+        String[] names = new String[phases.size()];
+        int[] durations = new int[phases.size()];
+        byte[] vehicle = new byte[phases.size() * sideCount];
+        boolean[] pedestrian = new boolean[phases.size() * sideCount];
+
+        for (int p = 0; p < phases.size(); p++) {
+            ProgramPhase phase = phases.get(p);
+            names[p] = phase.getName() != null ? phase.getName() : "PHASE_" + (p + 1);
+            durations[p] = Math.max(1, phase.getDurationTicks());
+            List<LightPhase> lights = phase.getVehicleLights();
+            List<Boolean> walks = phase.getPedestrianGreen();
+            for (int s = 0; s < sideCount; s++) {
+                vehicle[p * sideCount + s] = (byte) lights.get(s).ordinal();
+                pedestrian[p * sideCount + s] = walks != null && Boolean.TRUE.equals(walks.get(s));
+            }
+        }
+        return new PhaseProgram(names, durations, sideCount, vehicle, pedestrian, true);
+    }
+
+    /**
+     * Checks a phase table against the number of sides it drives
+     * @return A description of the first problem, or null if the table is usable
+     */
+    public static String validate(List<ProgramPhase> phases, int sideCount) {
+        if (phases.isEmpty()) {
+            return "no phases";
+        }
+        for (int p = 0; p < phases.size(); p++) {
+            ProgramPhase phase = phases.get(p);
+            List<LightPhase> lights = phase.getVehicleLights();
+            if (lights == null || lights.size() != sideCount || lights.contains(null)) {
+                return "phase " + (p + 1) + " sets " + (lights == null ? 0 : lights.size()) + " sides, the intersection has " + sideCount;
+            }
+            List<Boolean> walks = phase.getPedestrianGreen();
+            if (walks != null && walks.size() != sideCount) {
+                return "phase " + (p + 1) + " sets " + walks.size() + " pedestrian sides, the intersection has " + sideCount;
+            }
+            if (phase.getDurationTicks() <= 0) {
+                return "phase " + (p + 1) + " has no duration";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a phase table written as phases separated by ';'
+     * Each phase is "name:seconds:LIGHTS[:WALK]" with one letter per side: LIGHTS uses R, O, G for
+     * the vehicle lights, WALK uses G or R for the pedestrian lights (all red when omitted).
+     * Durations ending in 't' are in ticks. Example for two sides: "ns:10:GR:RG;ns-end:3:OR;ew:10:RG:GR;ew-end:3:RO"
+     * @throws IllegalArgumentException If the text is malformed or does not match the side count
+     */
+    public static List<ProgramPhase> parse(String text, int sideCount) {
+        List<ProgramPhase> phases = new ArrayList<>();
+        for (String part : text.split(";")) {
+            String entry = part.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            String[] fields = entry.split(":");
+            if (fields.length < 3 || fields.length > 4) {
+                throw new IllegalArgumentException("'" + entry + "' is not name:seconds:lights[:walk]");
+            }
+
+            String duration = fields[1].trim().toLowerCase();
+            int ticks;
+            try {
+                ticks = duration.endsWith("t")
+                        ? Integer.parseInt(duration.substring(0, duration.length() - 1))
+                        : (int) Math.round(Double.parseDouble(duration) * 20);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("'" + fields[1] + "' is not a duration");
+            }
+
+            String letters = fields[2].trim().toUpperCase();
+            if (letters.length() != sideCount) {
+                throw new IllegalArgumentException("'" + entry + "' sets " + letters.length() + " sides, the intersection has " + sideCount);
+            }
+            List<LightPhase> lights = new ArrayList<>(sideCount);
+            for (char c : letters.toCharArray()) {
+                lights.add(switch (c) {
+                    case 'R' -> LightPhase.RED;
+                    case 'O', 'Y' -> LightPhase.ORANGE;
+                    case 'G' -> LightPhase.GREEN;
+                    default -> throw new IllegalArgumentException("'" + c + "' is not R, O or G in '" + entry + "'");
+                });
+            }
+
+            List<Boolean> walks = null;
+            if (fields.length == 4) {
+                String walkLetters = fields[3].trim().toUpperCase();
+                if (walkLetters.length() != sideCount) {
+                    throw new IllegalArgumentException("'" + entry + "' sets " + walkLetters.length()
+                            + " pedestrian sides, the intersection has " + sideCount);
+                }
+                walks = new ArrayList<>(sideCount);
+                for (char c : walkLetters.toCharArray()) {
+                    if (c != 'G' && c != 'R') {
+                        throw new IllegalArgumentException("'" + c + "' is not G or R in '" + entry + "'");
+                    }
+                    walks.add(c == 'G');
+                }
+            }
+            phases.add(new ProgramPhase(fields[0].trim(), ticks, lights, walks));
+        }
+
+        String problem = validate(phases, sideCount);
+        if (problem != null) {
+            throw new IllegalArgumentException(problem);
+        }
+        return phases;
+    }
+
+    /**
+     * Writes a phase in the format accepted by parse
+     */
+    public String describe(int phase) {
+        StringBuilder builder = new StringBuilder(names[phase]).append(':').append(durations[phase]).append("t:");
+        for (int s = 0; s < sideCount; s++) {
+            builder.append(getVehicleLight(phase, s).name().charAt(0));
+        }
+        builder.append(':');
+        for (int s = 0; s < sideCount; s++) {
+            builder.append(isPedestrianGreen(phase, s) ? 'G' : 'R');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Checks if two programs can share a coordination group clock
+     * They need the same phases with the same durations. Default programs derive their outputs from
+     * each intersection's side directions, so only their timing is compared; custom tables must
+     * also set the same outputs, which requires the same number of sides.
+     */
+    public boolean isCompatibleWith(PhaseProgram other) {
+        if (!Arrays.equals(durations, other.durations) || custom != other.custom) {
+            return false;
+        }
+        return !custom || (sideCount == other.sideCount && Arrays.equals(vehicle, other.vehicle)
+                && Arrays.equals(pedestrianGreen, other.pedestrianGreen));
+    }
+
+    /**
+     * Gets the phase shown a number of ticks after a cycle start (any tick, negative included)
+     */
+    public int phaseAt(long cycleTick) {
+        long position = Math.floorMod(cycleTick, (long) cycleLength);
+        int phase = 0;
+        while (phase + 1 < starts.length && starts[phase + 1] <= position) {
+            phase++;
+        }
+        return phase;
+    }
+
+    /**
+     * Gets the number of ticks until the phase shown at a cycle tick ends (at least one)
+     */
+    public long ticksRemaining(long cycleTick) {
+        long position = Math.floorMod(cycleTick, (long) cycleLength);
+        int phase = phaseAt(position);
+        return starts[phase] + durations[phase] - position;
+    }
+
+    /**
+     * Gets the phase following another one
+     */
+    public int next(int phase) {
+        return phase + 1 == durations.length ? 0 : phase + 1;
+    }
+
+    public LightPhase getVehicleLight(int phase, int side) {
+        return LIGHTS[vehicle[phase * sideCount + side]];
+    }
+
+    public boolean isPedestrianGreen(int phase, int side) {
+        return pedestrianGreen[phase * sideCount + side];
+    }
+
+    public int getPhaseCount() {
+        return durations.length;
+    }
+
+    public String getName(int phase) {
+        return names[phase];
+    }
+
+    public int getDuration(int phase) {
+        return durations[phase];
+    }
+
+    /**
+     * Gets the tick of the cycle on which a phase starts
+     */
+    public int getStart(int phase) {
+        return starts[phase];
+    }
+
+    /**
+     * Gets the length of one full cycle in ticks (sum of all phase durations)
+     */
+    public int getCycleLength() {
+        return cycleLength;
+    }
+
+    public int getSideCount() {
+        return sideCount;
+    }
+
+    /**
+     * Checks if this program comes from the intersection's own phase table
+     */
+    public boolean isCustom() {
+        return custom;
+    }
+}
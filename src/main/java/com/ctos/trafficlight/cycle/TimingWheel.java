@@ -0,0 +1,152 @@
+package com.ctos.trafficlight.cycle;
+
+import java.util.Arrays;
+
+/**
+ * Hashed timing wheel keyed by server tick
+ *
+ * Items are hashed into a slot by their due tick, so advancing the wheel by one tick only
+ * looks at the items of a single slot. Items due further than one revolution away simply
+ * stay in their slot until their tick comes around.
+ * Not thread-safe: schedule and advance from the main thread only.
+ */
+public final class TimingWheel<T> {
+
+    /**
+     * Receives items as they become due
+     */
+    @FunctionalInterface
+    public interface DueHandler<T> {
+        void onDue(T item, long dueTick);
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param slotCount Number of slots, rounded up to a power of two
+     * @param startTick Tick the wheel starts at (items due at or before it fire on the next advance)
+     */
+    public TimingWheel(int slotCount, long startTick) {
+        int count = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+        this.slots = new Slot[count];
+        for (int i = 0; i < count; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = count - 1;
+        this.currentTick = startTick;
+    }
+
+    /**
+     * Schedules an item for a tick
+     * Items due at or before the current tick fire on the next advance.
+     */
+    public void schedule(T item, long dueTick) {
+        long tick = Math.max(dueTick, currentTick + 1);
+        slots[(int) (tick & mask)].add(item, dueTick);
+        size++;
+    }
+
+    /**
+     * Advances the wheel to a tick, handing every item due by then to the handler
+     * Only the slots of the ticks in between are visited (at most one full revolution).
+     * The handler may schedule new items.
+     */
+    public void advanceTo(long tick, DueHandler<T> handler) {
+        if (tick <= currentTick) {
+            return;
+        }
+
+        long from = currentTick + 1;
+        // Past one revolution every slot is visited once; due ticks decide what fires
+        if (tick - from > mask) {
+            from = tick - mask;
+        }
+        currentTick = tick;
+
+        for (long t = from; t <= tick; t++) {
+            size -= slots[(int) (t & mask)].fire(tick, handler);
+        }
+    }
+
+    /**
+     * Gets the number of scheduled items (including stale ones not yet fired)
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Drops every scheduled item
+     */
+    public void clear() {
+        for (Slot slot : slots) {
+            slot.clear();
+        }
+        size = 0;
+    }
+
+    private static final class Slot {
+        private Object[] items = new Object[4];
+        private long[] dueTicks = new long[4];
+        private int count;
+
+        void add(Object item, long dueTick) {
+            if (count == items.length) {
+                items = Arrays.copyOf(items, count * 2);
+                dueTicks = Arrays.copyOf(dueTicks, count * 2);
+            }
+            items[count] = item;
+            dueTicks[count] = dueTick;
+            count++;
+        }
+
+        /**
+         * Fires the items due by the tick and keeps the others
+         * @return Number of items fired
+         */
+        @SuppressWarnings("unchecked")
+        <T> int fire(long tick, DueHandler<T> handler) {
+            int n = count;
+            int kept = 0;
+            int fired = 0;
+            for (int i = 0; i < n; i++) {
+                Object item = items[i];
+                long due = dueTicks[i];
+                if (due <= tick) {
+                    items[i] = null;
+                    fired++;
+                    handler.onDue((T) item, due);
+                } else {
+                    items[kept] = item;
+                    dueTicks[kept] = due;
+                    if (kept != i) {
+                        items[i] = null;
+                    }
+                    kept++;
+                }
+            }
+
+            // Keep anything the handler scheduled into this slot while we were iterating
+            for (int i = n; i < count; i++) {
+                items[kept] = items[i];
+                dueTicks[kept] = dueTicks[i];
+                items[i] = null;
+                kept++;
+            }
+            count = kept;
+            return fired;
+        }
+
+        void clear() {
+            Arrays.fill(items, 0, count, null);
+            count = 0;
+        }
+    }
+}
@@ -4,58 +4,134 @@ import com.ctos.trafficlight.model.Intersection;
 import com.ctos.trafficlight.model.TimingConfiguration;
 
 /**
- * Manages the traffic light cycle for an intersection
+ * Manages the traffic light cycle for an intersection, running its compiled phase program
+ * Time is measured in ticks. Two modes are supported:
+ * - RELATIVE: the cycle keeps its own phase state from the server tick it was created on, each
+ *   phase starting exactly where the previous one ended
+ * - EPOCH: the phase is a pure function of a global tick epoch, the program and the
+ *   intersection's offset, so it is identical across restarts and catches up instantly after lag
  */
-public class TrafficCycle {
+public final class TrafficCycle implements PhaseClock {
+
+    /**
+     * How the cycle derives its phase from time
+     */
+    public enum Mode {
+        RELATIVE,
+        EPOCH
+    }
+
     private final Intersection intersection;
-    private CyclePhase currentPhase;
-    private long phaseStartTime;
+    private final PhaseProgram program;
+    private final Mode mode;
+
+    // RELATIVE mode state
+    private int currentPhase;
+    private long phaseStartTick;
 
-    public TrafficCycle(Intersection intersection) {
+    public TrafficCycle(Intersection intersection, PhaseProgram program, Mode mode, long currentTick) {
         this.intersection = intersection;
-        this.currentPhase = CyclePhase.NS_GREEN;
-        this.phaseStartTime = System.currentTimeMillis();
+        this.program = program;
+        this.mode = mode;
+
+        // Start where the offset places the cycle, so staggered intersections keep their spacing
+        long cycleTick = currentTick - getOffset();
+        this.currentPhase = program.phaseAt(cycleTick);
+        this.phaseStartTick = currentTick + program.ticksRemaining(cycleTick) - program.getDuration(currentPhase);
     }
 
     /**
-     * Advances to the next phase if enough time has elapsed
-     * @return true if the phase was advanced
+     * Brings the cycle up to a tick
+     * In RELATIVE mode this advances through every phase that ended by then (catching up after lag);
+     * EPOCH cycles have no state to advance.
+     * @param currentTick The current tick
+     * @return true if the phase changed
      */
-    public boolean tick() {
-        if (shouldAdvance()) {
-            advance();
-            return true;
+    public boolean tick(long currentTick) {
+        if (mode == Mode.EPOCH) {
+            return false;
         }
-        return false;
+
+        boolean advanced = false;
+        long next = getNextChangeTick(currentTick);
+        while (currentTick >= next) {
+            phaseStartTick = next;
+            currentPhase = program.next(currentPhase);
+            next = getNextChangeTick(currentTick);
+            advanced = true;
+        }
+        return advanced;
     }
 
     /**
-     * Checks if enough time has passed to advance to the next phase
+     * Gets the index in the program of the phase shown at a tick
+     * For RELATIVE cycles this is the phase reached by the last tick() call.
      */
-    private boolean shouldAdvance() {
-        long currentTime = System.currentTimeMillis();
-        long elapsed = currentTime - phaseStartTime;
-        long required = getRequiredDurationForCurrentPhase();
+    public int getCurrentPhase(long currentTick) {
+        if (mode == Mode.EPOCH) {
+            return program.phaseAt(currentTick - getOffset());
+        }
+        return currentPhase;
+    }
 
-        return elapsed >= required;
+    /**
+     * Gets the tick on which the phase shown at a tick ends
+     */
+    @Override
+    public long getNextChangeTick(long currentTick) {
+        if (mode == Mode.EPOCH) {
+            return currentTick + program.ticksRemaining(currentTick - getOffset());
+        }
+        return phaseStartTick + program.getDuration(currentPhase);
     }
 
     /**
-     * Advances to the next phase
+     * Gets the time left in the phase shown at a tick, in milliseconds (1 tick = 50ms)
      */
-    private void advance() {
-        currentPhase = currentPhase.getNext();
-        phaseStartTime = System.currentTimeMillis();
+    public long getTimeRemainingInPhase(long currentTick) {
+        return Math.max(0, getNextChangeTick(currentTick) - currentTick) * 50;
+    }
+
+    /**
+     * Forces advancement to a specific phase (RELATIVE mode only)
+     */
+    public void setPhase(int phase, long currentTick) {
+        this.currentPhase = phase;
+        this.phaseStartTick = currentTick;
+    }
+
+    /**
+     * Resets the cycle to the beginning (RELATIVE mode only)
+     */
+    public void reset(long currentTick) {
+        this.currentPhase = 0;
+        this.phaseStartTick = currentTick;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Intersection getIntersection() {
+        return intersection;
+    }
+
+    public PhaseProgram getProgram() {
+        return program;
+    }
+
+    private long getOffset() {
+        Integer offset = intersection.getCycleOffsetTicks();
+        return offset != null ? offset : 0;
     }
 
     /**
-     * Gets the required duration for the current phase in milliseconds
+     * Gets the duration of a phase of the default program in ticks (at least one)
      */
-    private long getRequiredDurationForCurrentPhase() {
-        TimingConfiguration timing = intersection.getTiming();
+    public static int getPhaseDuration(TimingConfiguration timing, CyclePhase phase) {
         int ticks;
 
-        switch (currentPhase) {
+        switch (phase) {
             case NS_GREEN:
             case EW_GREEN:
                 ticks = timing.getGreenDurationTicks();
@@ -75,41 +151,6 @@ public class TrafficCycle {
                 ticks = 20; // 1 second default
         }
 
-        // Convert ticks to milliseconds (1 tick = 50ms)
-        return ticks * 50;
-    }
-
-    /**
-     * Forces advancement to a specific phase
-     */
-    public void setPhase(CyclePhase phase) {
-        this.currentPhase = phase;
-        this.phaseStartTime = System.currentTimeMillis();
-    }
-
-    /**
-     * Resets the cycle to the beginning
-     */
-    public void reset() {
-        this.currentPhase = CyclePhase.NS_GREEN;
-        this.phaseStartTime = System.currentTimeMillis();
-    }
-
-    public CyclePhase getCurrentPhase() {
-        return currentPhase;
-    }
-
-    public Intersection getIntersection() {
-        return intersection;
-    }
-
-    public long getTimeInCurrentPhase() {
-        return System.currentTimeMillis() - phaseStartTime;
-    }
-
-    public long getTimeRemainingInPhase() {
-        long required = getRequiredDurationForCurrentPhase();
-        long elapsed = getTimeInCurrentPhase();
-        return Math.max(0, required - elapsed);
+        return Math.max(1, ticks);
     }
 }
@@ -1,6 +1,7 @@
 package com.ctos.trafficlight.model;
 
-import org.bukkit.Bukkit;
+import com.ctos.util.PositionKeys;
+import com.ctos.util.WorldRegistry;
 import org.bukkit.Location;
 import org.bukkit.Server;
 import org.bukkit.World;
@@ -12,15 +13,19 @@ import java.util.Objects;
  */
 public class BlockPosition {
     private final String worldName;
+    private final int worldId; // Dense id from WorldRegistry
+    private final long key; // Packed coordinates, without the world (see PositionKeys)
     private final int x;
     private final int y;
     private final int z;
 
     public BlockPosition(String worldName, int x, int y, int z) {
         this.worldName = worldName;
+        this.worldId = worldName != null ? WorldRegistry.idOf(worldName) : -1;
         this.x = x;
         this.y = y;
         this.z = z;
+        this.key = PositionKeys.pack(x, y, z);
     }
 
     public static BlockPosition fromLocation(Location location) {
@@ -41,7 +46,25 @@ public class BlockPosition {
     }
 
     public Location toLocation() {
-        return toLocation(Bukkit.getServer());
+        World world = WorldRegistry.get(worldId);
+        if (world == null) {
+            throw new IllegalStateException("World " + worldName + " is not loaded");
+        }
+        return new Location(world, x, y, z);
+    }
+
+    /**
+     * Gets the dense id of this position's world (see WorldRegistry)
+     */
+    public int getWorldId() {
+        return worldId;
+    }
+
+    /**
+     * Gets the packed key of this position's block within its world (see PositionKeys; item frame facing is not included)
+     */
+    public long getKey() {
+        return key;
     }
 
     public String getWorldName() {
@@ -73,7 +96,8 @@ public class BlockPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(worldName, x, y, z);
+        // Computed without Objects.hash, which boxes every field into a varargs array
+        return Long.hashCode(key);
     }
 
     @Override
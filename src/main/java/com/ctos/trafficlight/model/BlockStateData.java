@@ -1,5 +1,7 @@
 package com.ctos.trafficlight.model;
 
+import com.ctos.util.BlockDataCache;
+import com.ctos.util.ProfileCache;
 import com.destroystokyo.paper.profile.PlayerProfile;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
@@ -11,6 +13,8 @@ import org.bukkit.profile.PlayerTextures;
 
 import java.net.URL;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.logging.Level;
@@ -23,6 +27,12 @@ import java.util.logging.Logger;
 public class BlockStateData {
     private static final Logger LOGGER = Logger.getLogger("ctOS");
     private static boolean debugEnabled = false;
+    private static boolean snapshotFreeSkulls = true;
+
+    // Skull write counters (main thread only)
+    private static long headApplies;
+    private static long tileEntityWrites;
+    private static long skippedProfileWrites;
 
     /**
      * Sets the debug mode (called from plugin)
@@ -31,6 +41,43 @@ public class BlockStateData {
         debugEnabled = enabled;
     }
 
+    /**
+     * Sets whether player heads are written through Paper's non-snapshot state (called from plugin)
+     */
+    public static void setSnapshotFreeSkulls(boolean enabled) {
+        snapshotFreeSkulls = enabled;
+    }
+
+    /**
+     * Gets the number of player head applies that needed a profile
+     */
+    public static long getHeadApplies() {
+        return headApplies;
+    }
+
+    /**
+     * Gets the number of skull tile entity writes performed
+     */
+    public static long getTileEntityWrites() {
+        return tileEntityWrites;
+    }
+
+    /**
+     * Gets the number of profile writes skipped because the skull already showed the same head
+     */
+    public static long getSkippedProfileWrites() {
+        return skippedProfileWrites;
+    }
+
+    /**
+     * Resets the skull write counters, e.g. before comparing both update modes
+     */
+    public static void resetSkullCounters() {
+        headApplies = 0;
+        tileEntityWrites = 0;
+        skippedProfileWrites = 0;
+    }
+
     private static void debug(String message) {
         if (debugEnabled) {
             LOGGER.info("[DEBUG] " + message);
@@ -41,6 +88,11 @@ public class BlockStateData {
     private String blockDataString;
     private String playerProfileData; // For player heads
 
+    // Parsed forms, resolved lazily and shared through BlockDataCache
+    private BlockData parsedBlockData;
+    private Map<String, BlockData> facingVariants; // facing -> BlockData with that facing applied
+    private PlayerProfile resolvedProfile; // Shared through ProfileCache
+
     public BlockStateData(Material material, String blockDataString, String playerProfileData) {
         this.material = material;
         this.blockDataString = blockDataString;
@@ -82,69 +134,220 @@ public class BlockStateData {
      * @param direction Cardinal direction (North/South/East/West) for automatic head rotation
      */
     public void applyToBlock(Block block, String direction) {
+        applyToBlockWithFacing(block, facingForDirection(direction));
+    }
+
+    /**
+     * Applies this block data to a block in the world (without direction override)
+     * Uses the original captured rotation
+     */
+    public void applyToBlock(Block block) {
+        applyToBlock(block, null);
+    }
+
+    /**
+     * Applies this block data to a block, copying the facing from another BlockStateData
+     * Useful for neutral blocks that need to match the orientation of the block they replace
+     */
+    public void applyToBlockWithFacingFrom(Block block, BlockStateData facingSource) {
+        applyToBlockWithFacing(block, facingSource != null ? facingSource.extractFacing() : null);
+    }
+
+    /**
+     * Applies this block data to a block with an explicit facing for player heads
+     * @param block The block to update
+     * @param facing Minecraft facing (north/south/east/west) to force, or null to keep the captured one
+     */
+    public void applyToBlockWithFacing(Block block, String facing) {
         // Set material and block data (this includes rotation for heads)
-        String adjustedBlockDataString = adjustBlockDataForDirection(blockDataString, direction);
-        BlockData blockData = Bukkit.createBlockData(adjustedBlockDataString);
+        BlockData blockData = getBlockData(facing);
         block.setBlockData(blockData, false); // false = no physics update for performance
 
         // If this was a player head, restore the profile while preserving rotation
-        if (playerProfileData != null && (block.getType() == Material.PLAYER_HEAD || block.getType() == Material.PLAYER_WALL_HEAD)) {
-            debug("Applying player head with blockData: " + adjustedBlockDataString + " (direction: " + direction + ")");
+        // The material comes from the cached data, so other block types never touch the tile entity
+        if (playerProfileData == null || !isPlayerHead(blockData.getMaterial())) {
+            return;
+        }
 
-            BlockState state = block.getState();
-            if (state instanceof Skull) {
-                Skull skull = (Skull) state;
-                PlayerProfile profile = deserializePlayerProfile(playerProfileData);
+        if (debugEnabled) {
+            debug("Applying player head with blockData: " + blockData.getAsString() + " (facing: " + facing + ")");
+        }
 
-                if (profile != null) {
-                    skull.setPlayerProfile(profile);
+        PlayerProfile profile = getPlayerProfile();
+        if (profile == null) {
+            return;
+        }
+        headApplies++;
 
-                    // CRITICAL: Set blockData on Skull to preserve rotation
-                    // Without this, skull.update() writes a default blockData without rotation
-                    skull.setBlockData(blockData);
+        if (snapshotFreeSkulls) {
+            applyProfileInPlace(block, profile);
+        } else {
+            applyProfileWithSnapshot(block, blockData, profile);
+        }
+    }
 
-                    // Update the skull state - now includes both profile AND rotation
-                    skull.update(true, false); // Update the block state
+    /**
+     * Writes the profile through Paper's non-snapshot state, skipping the write
+     * when the tile entity already holds the same profile
+     */
+    private void applyProfileInPlace(Block block, PlayerProfile profile) {
+        BlockState state = block.getState(false);
+        if (!(state instanceof Skull skull)) {
+            return;
+        }
 
-                    debug("Applied player head, final blockData: " + block.getBlockData().getAsString());
-                }
-            }
+        if (isSameProfile(skull.getPlayerProfile(), profile)) {
+            skippedProfileWrites++;
+            return;
+        }
+
+        // The live state already carries the block data set above (rotation included)
+        skull.setPlayerProfile(profile);
+        skull.update(true, false);
+        tileEntityWrites++;
+
+        if (debugEnabled) {
+            debug("Applied player head in place, final blockData: " + block.getBlockData().getAsString());
         }
     }
 
     /**
-     * Applies this block data to a block in the world (without direction override)
-     * Uses the original captured rotation
+     * Writes the profile through a full tile entity snapshot (original behaviour)
      */
-    public void applyToBlock(Block block) {
-        applyToBlock(block, null);
+    private void applyProfileWithSnapshot(Block block, BlockData blockData, PlayerProfile profile) {
+        BlockState state = block.getState();
+        if (!(state instanceof Skull skull)) {
+            return;
+        }
+
+        skull.setPlayerProfile(profile);
+
+        // CRITICAL: Set blockData on Skull to preserve rotation
+        // Without this, skull.update() writes a default blockData without rotation
+        skull.setBlockData(blockData);
+
+        // Update the skull state - now includes both profile AND rotation
+        skull.update(true, false); // Update the block state
+        tileEntityWrites++;
+
+        if (debugEnabled) {
+            debug("Applied player head, final blockData: " + block.getBlockData().getAsString());
+        }
+    }
+
+    private static boolean isPlayerHead(Material material) {
+        return material == Material.PLAYER_HEAD || material == Material.PLAYER_WALL_HEAD;
     }
 
     /**
-     * Applies this block data to a block, copying the facing from another BlockStateData
-     * Useful for neutral blocks that need to match the orientation of the block they replace
+     * Checks if a tile entity's profile shows the same head as ours (same id and skin)
      */
-    public void applyToBlockWithFacingFrom(Block block, BlockStateData facingSource) {
-        String facing = facingSource != null ? facingSource.extractFacing() : null;
-        String adjustedBlockDataString = applyFacingToBlockData(blockDataString, facing);
-
-        BlockData blockData = Bukkit.createBlockData(adjustedBlockDataString);
-        block.setBlockData(blockData, false);
-
-        // If this was a player head, restore the profile
-        if (playerProfileData != null && (block.getType() == Material.PLAYER_HEAD || block.getType() == Material.PLAYER_WALL_HEAD)) {
-            BlockState state = block.getState();
-            if (state instanceof Skull) {
-                Skull skull = (Skull) state;
-                PlayerProfile profile = deserializePlayerProfile(playerProfileData);
-
-                if (profile != null) {
-                    skull.setPlayerProfile(profile);
-                    skull.setBlockData(blockData);
-                    skull.update(true, false);
-                }
-            }
+    private static boolean isSameProfile(PlayerProfile current, PlayerProfile wanted) {
+        if (current == null) {
+            return false;
+        }
+        if (current == wanted) {
+            return true;
+        }
+        if (!Objects.equals(current.getId(), wanted.getId())) {
+            return false;
         }
+        URL currentSkin = current.getTextures().getSkin();
+        URL wantedSkin = wanted.getTextures().getSkin();
+        return currentSkin != null && wantedSkin != null
+                ? currentSkin.toString().equals(wantedSkin.toString())
+                : currentSkin == wantedSkin;
+    }
+
+    /**
+     * Gets the parsed block data as captured
+     * The instance is shared and must not be modified
+     */
+    public BlockData getBlockData() {
+        BlockData parsed = parsedBlockData;
+        if (parsed == null) {
+            parsed = BlockDataCache.get(blockDataString);
+            parsedBlockData = parsed;
+        }
+        return parsed;
+    }
+
+    /**
+     * Gets the parsed block data with a facing forced on player heads
+     * Each facing variant is computed once per state and interned globally
+     * The instance is shared and must not be modified
+     * @param facing Minecraft facing (north/south/east/west), or null for the captured one
+     */
+    public BlockData getBlockData(String facing) {
+        if (facing == null) {
+            return getBlockData();
+        }
+
+        Map<String, BlockData> variants = facingVariants;
+        if (variants == null) {
+            variants = new HashMap<>(4);
+            facingVariants = variants;
+        }
+
+        BlockData variant = variants.get(facing);
+        if (variant == null) {
+            String adjusted = applyFacingToBlockData(blockDataString, facing);
+            variant = adjusted.equals(blockDataString) ? getBlockData() : BlockDataCache.get(adjusted);
+            variants.put(facing, variant);
+        }
+        return variant;
+    }
+
+    /**
+     * Gets the player profile of a captured player head, or null for other blocks
+     * Resolved once per state through the shared ProfileCache; the profile must not be modified
+     */
+    public PlayerProfile getPlayerProfile() {
+        if (playerProfileData == null) {
+            return null;
+        }
+        PlayerProfile profile = resolvedProfile;
+        if (profile == null) {
+            profile = ProfileCache.get(playerProfileData, BlockStateData::deserializePlayerProfile);
+            resolvedProfile = profile;
+        }
+        return profile;
+    }
+
+    /**
+     * Builds a skull state detached from any world, carrying this head's profile
+     * Used to show the head to clients without touching the real block
+     * @param facing Minecraft facing (north/south/east/west), or null for the captured one
+     * @return The skull state, or null if this is not a player head with a profile
+     */
+    public Skull createDetachedSkull(String facing) {
+        if (playerProfileData == null) {
+            return null;
+        }
+        BlockData blockData = getBlockData(facing);
+        if (!isPlayerHead(blockData.getMaterial())) {
+            return null;
+        }
+        PlayerProfile profile = getPlayerProfile();
+        if (profile == null) {
+            return null;
+        }
+
+        BlockState state = blockData.createBlockState();
+        if (!(state instanceof Skull skull)) {
+            return null;
+        }
+        skull.setPlayerProfile(profile);
+        return skull;
+    }
+
+    /**
+     * Resolves everything an apply with the given facing needs (block data and head profile)
+     * so that no parsing or profile building happens on the animation tick
+     */
+    public void warm(String facing) {
+        getBlockData(facing);
+        getPlayerProfile();
     }
 
     /**
@@ -178,38 +381,27 @@ public class BlockStateData {
     }
 
     /**
-     * Adjusts the blockData string to set the facing direction based on cardinal direction
-     * For player_wall_head and player_head blocks
+     * Maps a side's cardinal direction to the facing its player heads must use
+     * The head must face OPPOSITE to the side direction:
+     * A "South" side is for drivers coming FROM the south, so the head must face NORTH (towards them)
+     * @return The Minecraft facing, or null for unknown directions (keep original)
      */
-    private String adjustBlockDataForDirection(String originalBlockData, String direction) {
-        if (direction == null || !originalBlockData.contains("player")) {
-            return originalBlockData;
+    public static String facingForDirection(String direction) {
+        if (direction == null) {
+            return null;
         }
 
-        // Map cardinal direction to Minecraft facing direction
-        // The head must face OPPOSITE to the side direction:
-        // A "South" side is for drivers coming FROM the south, so the head must face NORTH (towards them)
-        String facing;
         String dirLower = direction.toLowerCase();
         if (dirLower.contains("north")) {
-            facing = "south";  // North side -> face South (towards drivers coming from north)
+            return "south";  // North side -> face South (towards drivers coming from north)
         } else if (dirLower.contains("south")) {
-            facing = "north";  // South side -> face North (towards drivers coming from south)
+            return "north";  // South side -> face North (towards drivers coming from south)
         } else if (dirLower.contains("east")) {
-            facing = "west";   // East side -> face West (towards drivers coming from east)
+            return "west";   // East side -> face West (towards drivers coming from east)
         } else if (dirLower.contains("west")) {
-            facing = "east";   // West side -> face East (towards drivers coming from west)
-        } else {
-            return originalBlockData; // Unknown direction, keep original
-        }
-
-        // Replace the facing value in the blockData string
-        // Example: "minecraft:player_wall_head[facing=north,powered=false]" -> "minecraft:player_wall_head[facing=south,powered=false]"
-        if (originalBlockData.contains("facing=")) {
-            return originalBlockData.replaceFirst("facing=[a-z]+", "facing=" + facing);
+            return "east";   // West side -> face East (towards drivers coming from west)
         }
-
-        return originalBlockData;
+        return null; // Unknown direction, keep original
     }
 
     /**
@@ -291,6 +483,18 @@ public class BlockStateData {
         }
     }
 
+    /**
+     * Gets this state with a facing stored in its block data (player heads only, like applies)
+     * @return This state if the facing is null or already the stored one, a new state otherwise
+     */
+    public BlockStateData withFacing(String facing) {
+        if (facing == null || blockDataString == null) {
+            return this;
+        }
+        String adjusted = applyFacingToBlockData(blockDataString, facing);
+        return adjusted.equals(blockDataString) ? this : new BlockStateData(material, adjusted, playerProfileData);
+    }
+
     /**
      * Creates a deep copy of this BlockStateData
      */
@@ -0,0 +1,146 @@
+package com.ctos.trafficlight.model;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.BlockDisplay;
+import org.bukkit.entity.Display;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.ItemDisplay;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * A traffic light element that represents an item or block display entity.
+ * The entity is found by its UUID, falling back to its exact coordinates when the UUID is stale.
+ * Display entities are never spawned by ctOS: a missing display is simply not updated.
+ */
+public final class DisplayElement implements TrafficLightElement {
+
+    private static final Logger LOGGER = Logger.getLogger("ctOS");
+
+    private final ElementPosition position;
+    private final DisplayStateData displayState;
+    private UUID entityId;
+
+    public DisplayElement(ElementPosition position, DisplayStateData displayState, UUID entityId) {
+        this.position = position;
+        this.displayState = displayState;
+        this.entityId = entityId;
+    }
+
+    /**
+     * Captures a display entity from the world
+     */
+    public static DisplayElement capture(Display display) {
+        ElementPosition pos = ElementPosition.fromLocation(display.getLocation());
+        return new DisplayElement(pos, DisplayStateData.capture(display), display.getUniqueId());
+    }
+
+    @Override
+    public String getElementType() {
+        return "display";
+    }
+
+    @Override
+    public ElementPosition getPosition() {
+        return position;
+    }
+
+    public DisplayStateData getDisplayState() {
+        return displayState;
+    }
+
+    public UUID getEntityId() {
+        return entityId;
+    }
+
+    /**
+     * Finds the display entity of this element
+     * @param world The world to search in
+     * @return The display, or null if its chunk is not loaded or it no longer exists
+     */
+    public Display findDisplay(World world) {
+        if (entityId != null && world.getEntity(entityId) instanceof Display display && display.isValid()) {
+            return display;
+        }
+
+        Location loc = position.toLocation();
+        if (!loc.isChunkLoaded()) {
+            return null;
+        }
+        Chunk chunk = loc.getChunk();
+        if (!chunk.isEntitiesLoaded()) {
+            return null;
+        }
+
+        // The UUID is stale (entity copied or recreated): match the exact location and kind
+        boolean wantsBlock = displayState != null && displayState.isBlockDisplay();
+        for (Entity entity : chunk.getEntities()) {
+            if (!(entity instanceof Display display)) {
+                continue;
+            }
+            if (wantsBlock ? !(display instanceof BlockDisplay) : !(display instanceof ItemDisplay)) {
+                continue;
+            }
+            Location displayLoc = display.getLocation();
+            if (displayState != null
+                    ? Math.abs(displayLoc.getX() - displayState.getExactX()) < 0.01
+                        && Math.abs(displayLoc.getY() - displayState.getExactY()) < 0.01
+                        && Math.abs(displayLoc.getZ() - displayState.getExactZ()) < 0.01
+                    : displayLoc.getBlockX() == position.getX()
+                        && displayLoc.getBlockY() == position.getY()
+                        && displayLoc.getBlockZ() == position.getZ()) {
+                entityId = display.getUniqueId();
+                return display;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void apply(World world, String direction) {
+        if (displayState == null) return;
+
+        Display display = findDisplay(world);
+        if (display == null) {
+            LOGGER.warning("Could not find display entity at " + position);
+            return;
+        }
+
+        displayState.applyToDisplay(display, false);
+    }
+
+    @Override
+    public void applyWithFacingFrom(World world, TrafficLightElement facingSource) {
+        // Displays keep their own transformation
+        apply(world, null);
+    }
+
+    @Override
+    public String extractFacing() {
+        return null;
+    }
+
+    @Override
+    public TrafficLightElement copy() {
+        return new DisplayElement(position, displayState != null ? displayState.copy() : null, entityId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DisplayElement that = (DisplayElement) o;
+        return Objects.equals(position, that.position) &&
+                Objects.equals(displayState, that.displayState) &&
+                Objects.equals(entityId, that.entityId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(position, displayState, entityId);
+    }
+}
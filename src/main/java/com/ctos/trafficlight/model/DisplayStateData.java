@@ -0,0 +1,251 @@
+package com.ctos.trafficlight.model;
+
+import com.ctos.util.BlockDataCache;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.BlockDisplay;
+import org.bukkit.entity.Display;
+import org.bukkit.entity.ItemDisplay;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Stores what a display entity shows (an item or a block) for serialization and restoration
+ * Switching a display is a single entity metadata update, with no tile entity or light engine work.
+ */
+public class DisplayStateData {
+    private static final BlockData AIR = Material.AIR.createBlockData();
+
+    // Display write counters (main thread only)
+    private static long propertyWrites;
+    private static long skippedPropertyWrites;
+    private static int litBrightnessOverride = -1; // -1 = keep the captured brightness
+
+    private Map<String, Object> serializedItem; // ItemStack.serialize(), item displays only
+    private String blockDataString; // Block displays only
+    private Integer brightness; // Captured block light override, null = world lighting
+
+    // Exact coordinates for matching the entity when its handle is lost
+    private double exactX;
+    private double exactY;
+    private double exactZ;
+
+    private ItemStack deserializedItem; // Resolved lazily from serializedItem
+    private BlockData parsedBlockData; // Resolved lazily from blockDataString
+
+    public DisplayStateData(Map<String, Object> serializedItem, String blockDataString, Integer brightness,
+                            double exactX, double exactY, double exactZ) {
+        this.serializedItem = serializedItem != null ? new HashMap<>(serializedItem) : null;
+        this.blockDataString = blockDataString;
+        this.brightness = brightness;
+        this.exactX = exactX;
+        this.exactY = exactY;
+        this.exactZ = exactZ;
+    }
+
+    /**
+     * Captures what a display entity currently shows
+     */
+    public static DisplayStateData capture(Display display) {
+        Map<String, Object> serializedItem = null;
+        String blockDataString = null;
+        if (display instanceof ItemDisplay itemDisplay) {
+            ItemStack item = itemDisplay.getItemStack();
+            if (item != null && !item.getType().isAir()) {
+                serializedItem = item.serialize();
+            }
+        } else if (display instanceof BlockDisplay blockDisplay) {
+            blockDataString = blockDisplay.getBlock().getAsString();
+        }
+
+        Display.Brightness captured = display.getBrightness();
+        Location loc = display.getLocation();
+        return new DisplayStateData(serializedItem, blockDataString,
+                captured != null ? captured.getBlockLight() : null,
+                loc.getX(), loc.getY(), loc.getZ());
+    }
+
+    /**
+     * Sets the block light forced on lit displays, or -1 to keep each display's captured brightness
+     * (called from plugin)
+     */
+    public static void setLitBrightnessOverride(int blockLight) {
+        litBrightnessOverride = blockLight < 0 ? -1 : Math.min(15, blockLight);
+    }
+
+    /**
+     * Applies this state to a display entity
+     * Unchanged values are not written, so a phase change costs one metadata update at most
+     * @param display The display to update
+     * @param lit Whether this is a lit appearance (subject to the brightness override)
+     */
+    public void applyToDisplay(Display display, boolean lit) {
+        if (display instanceof ItemDisplay itemDisplay) {
+            showItem(itemDisplay, getItem());
+        } else if (display instanceof BlockDisplay blockDisplay) {
+            showBlock(blockDisplay, getBlockData());
+        }
+
+        Integer blockLight = lit && litBrightnessOverride >= 0 ? Integer.valueOf(litBrightnessOverride) : brightness;
+        Display.Brightness current = display.getBrightness();
+        if (blockLight == null) {
+            if (current != null) {
+                display.setBrightness(null);
+                propertyWrites++;
+            }
+        } else if (current == null || current.getBlockLight() != blockLight) {
+            display.setBrightness(new Display.Brightness(blockLight, current != null ? current.getSkyLight() : 15));
+            propertyWrites++;
+        } else {
+            skippedPropertyWrites++;
+        }
+    }
+
+    /**
+     * Makes a display show nothing (used when there is no display neutral state)
+     */
+    public static void hide(Display display) {
+        if (display instanceof ItemDisplay itemDisplay) {
+            showItem(itemDisplay, null);
+        } else if (display instanceof BlockDisplay blockDisplay) {
+            showBlock(blockDisplay, AIR);
+        }
+    }
+
+    private static void showItem(ItemDisplay display, ItemStack item) {
+        ItemStack current = display.getItemStack();
+        boolean showing = item == null
+                ? current == null || current.getType().isAir()
+                : item.equals(current);
+        if (showing) {
+            skippedPropertyWrites++;
+            return;
+        }
+        display.setItemStack(item);
+        propertyWrites++;
+    }
+
+    private static void showBlock(BlockDisplay display, BlockData block) {
+        if (block == null) {
+            block = AIR;
+        }
+        if (block.equals(display.getBlock())) {
+            skippedPropertyWrites++;
+            return;
+        }
+        display.setBlock(block);
+        propertyWrites++;
+    }
+
+    /**
+     * Gets the displayed item, deserialized once and cached
+     * The instance is shared and must not be modified
+     * @return The item, or null if this is not an item display state (or an empty one)
+     */
+    public ItemStack getItem() {
+        if (serializedItem == null) {
+            return null;
+        }
+        ItemStack item = deserializedItem;
+        if (item == null) {
+            item = ItemStack.deserialize(serializedItem);
+            deserializedItem = item;
+        }
+        return item;
+    }
+
+    /**
+     * Gets the displayed block data, parsed once and interned
+     * The instance is shared and must not be modified
+     * @return The block data, or null if this is not a block display state
+     */
+    public BlockData getBlockData() {
+        if (blockDataString == null) {
+            return null;
+        }
+        BlockData parsed = parsedBlockData;
+        if (parsed == null) {
+            parsed = BlockDataCache.get(blockDataString);
+            parsedBlockData = parsed;
+        }
+        return parsed;
+    }
+
+    /**
+     * Resolves the item or block data up front so that nothing is parsed on the animation tick
+     */
+    public void warm() {
+        getItem();
+        getBlockData();
+    }
+
+    /**
+     * Gets the number of display property writes performed
+     */
+    public static long getPropertyWrites() {
+        return propertyWrites;
+    }
+
+    /**
+     * Gets the number of display property writes skipped because the value was unchanged
+     */
+    public static long getSkippedPropertyWrites() {
+        return skippedPropertyWrites;
+    }
+
+    /**
+     * Creates a deep copy
+     */
+    public DisplayStateData copy() {
+        return new DisplayStateData(serializedItem, blockDataString, brightness, exactX, exactY, exactZ);
+    }
+
+    // Getters
+
+    public Map<String, Object> getSerializedItem() {
+        return serializedItem != null ? new HashMap<>(serializedItem) : null;
+    }
+
+    public String getBlockDataString() {
+        return blockDataString;
+    }
+
+    public Integer getBrightness() {
+        return brightness;
+    }
+
+    public double getExactX() {
+        return exactX;
+    }
+
+    public double getExactY() {
+        return exactY;
+    }
+
+    public double getExactZ() {
+        return exactZ;
+    }
+
+    public boolean isBlockDisplay() {
+        return blockDataString != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DisplayStateData that = (DisplayStateData) o;
+        return Objects.equals(serializedItem, that.serializedItem) &&
+                Objects.equals(blockDataString, that.blockDataString) &&
+                Objects.equals(brightness, that.brightness);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(serializedItem, blockDataString, brightness);
+    }
+}
@@ -1,6 +1,7 @@
 package com.ctos.trafficlight.model;
 
-import org.bukkit.Bukkit;
+import com.ctos.util.PositionKeys;
+import com.ctos.util.WorldRegistry;
 import org.bukkit.Location;
 import org.bukkit.Server;
 import org.bukkit.World;
@@ -15,6 +16,8 @@ import java.util.Objects;
  */
 public class ElementPosition {
     private final String worldName;
+    private final int worldId; // Dense id from WorldRegistry
+    private final long key; // Packed coordinates, without the world (see PositionKeys)
     private final int x;
     private final int y;
     private final int z;
@@ -32,9 +35,11 @@ public class ElementPosition {
      */
     public ElementPosition(String worldName, int x, int y, int z, BlockFace facing) {
         this.worldName = worldName;
+        this.worldId = worldName != null ? WorldRegistry.idOf(worldName) : -1;
         this.x = x;
         this.y = y;
         this.z = z;
+        this.key = PositionKeys.pack(x, y, z);
         this.facing = facing;
     }
 
@@ -94,10 +99,37 @@ public class ElementPosition {
     }
 
     /**
-     * Converts to a Bukkit Location using Bukkit.getServer()
+     * Converts to a Bukkit Location through the cached world handle
+     * @throws IllegalStateException if the world is not loaded
      */
     public Location toLocation() {
-        return toLocation(Bukkit.getServer());
+        World world = getWorld();
+        if (world == null) {
+            throw new IllegalStateException("World " + worldName + " is not loaded");
+        }
+        return new Location(world, x, y, z);
+    }
+
+    /**
+     * Gets the world through the cached handle
+     * @return The world, or null if it is not loaded
+     */
+    public World getWorld() {
+        return WorldRegistry.get(worldId);
+    }
+
+    /**
+     * Gets the dense id of this position's world (see WorldRegistry)
+     */
+    public int getWorldId() {
+        return worldId;
+    }
+
+    /**
+     * Gets the packed key of this position's block within its world (see PositionKeys; item frame facing is not included)
+     */
+    public long getKey() {
+        return key;
     }
 
     /**
@@ -141,7 +173,10 @@ public class ElementPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(worldName, x, y, z, facing);
+        // Computed without Objects.hash, which boxes every field into a varargs array
+        int result = Long.hashCode(key);
+        result = 31 * result + (facing != null ? facing.hashCode() : 0);
+        return result;
     }
 
     /**
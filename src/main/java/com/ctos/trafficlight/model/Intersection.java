@@ -4,6 +4,8 @@ import java.util.*;
 
 /**
  * Represents a complete traffic light intersection with all its sides
+ * Sides and the phase program are handed out as read-only views; the block and element sets
+ * of all sides are memoized until the intersection or one of its sides is mutated.
  */
 public class Intersection {
     private UUID id;
@@ -14,6 +16,16 @@ public class Intersection {
     private TrafficLightElement neutralElement; // The "off" state element (for both blocks and item frames)
     private int currentPhaseIndex;
     private long lastPhaseChangeTime;
+    private Integer cycleOffsetTicks; // Shift of the epoch-based cycle in ticks (null = not set)
+    private String coordinationGroup; // Name of the group whose shared clock drives this intersection (null = own cycle)
+    private List<ProgramPhase> phaseProgram; // Custom phase table (null = default NS/EW program)
+
+    // Views and derived results, rebuilt lazily after a mutation (not persisted)
+    private transient long revision;
+    private transient long derivedRevision; // Revision the derived results below were built at
+    private transient List<TrafficLightSide> sidesView;
+    private transient Set<BlockPosition> allBlocks;
+    private transient Set<ElementPosition> allElementPositions;
 
     public Intersection(UUID id, String name) {
         this.id = id;
@@ -29,6 +41,7 @@ public class Intersection {
      */
     public void addSide(TrafficLightSide side) {
         sides.add(side);
+        changed();
     }
 
     /**
@@ -36,6 +49,20 @@ public class Intersection {
      */
     public void removeSide(TrafficLightSide side) {
         sides.remove(side);
+        changed();
+    }
+
+    /**
+     * Removes the side at an index
+     * @return false if there is no side at that index
+     */
+    public boolean removeSide(int index) {
+        if (index < 0 || index >= sides.size()) {
+            return false;
+        }
+        sides.remove(index);
+        changed();
+        return true;
     }
 
     /**
@@ -47,9 +74,9 @@ public class Intersection {
             return false;
         }
 
-        // All sides must be complete (either block-based or element-based)
+        // All sides must have at least one element for each light phase
         for (TrafficLightSide side : sides) {
-            if (!side.isComplete() && !side.isElementsComplete()) {
+            if (!side.isElementsComplete()) {
                 return false;
             }
         }
@@ -62,17 +89,55 @@ public class Intersection {
         return true;
     }
 
+    /**
+     * Converts the legacy block storage of every side into block elements (see TrafficLightSide#migrateLegacyBlocks)
+     * @return The number of blocks converted
+     */
+    public int migrateLegacyBlocks() {
+        int migrated = 0;
+        for (TrafficLightSide side : sides) {
+            migrated += side.migrateLegacyBlocks();
+        }
+        return migrated;
+    }
+
     /**
      * Gets all block positions managed by this intersection
      */
     public Set<BlockPosition> getAllBlocks() {
-        Set<BlockPosition> allBlocks = new HashSet<>();
+        if (!isDerivedCurrent() || allBlocks == null) {
+            Set<BlockPosition> blocks = new HashSet<>();
+            for (TrafficLightSide side : sides) {
+                blocks.addAll(side.getAllBlocks());
+            }
+            allBlocks = Collections.unmodifiableSet(blocks);
+        }
+        return allBlocks;
+    }
 
+    /**
+     * Checks if the memoized derived results were built from the current state, dropping them otherwise
+     */
+    private boolean isDerivedCurrent() {
+        long latest = revision;
         for (TrafficLightSide side : sides) {
-            allBlocks.addAll(side.getAllBlocks());
+            latest = Math.max(latest, side.getRevision());
+        }
+        if (latest == derivedRevision) {
+            return true;
         }
+        derivedRevision = latest;
+        allBlocks = null;
+        allElementPositions = null;
+        return false;
+    }
 
-        return allBlocks;
+    /**
+     * Stamps a mutation of this intersection's own fields
+     */
+    private void changed() {
+        revision = ModelRevision.next();
+        sidesView = null;
     }
 
     /**
@@ -191,11 +256,15 @@ public class Intersection {
     }
 
     public List<TrafficLightSide> getSides() {
-        return new ArrayList<>(sides);
+        if (sidesView == null) {
+            sidesView = Collections.unmodifiableList(sides);
+        }
+        return sidesView;
     }
 
     public void setSides(List<TrafficLightSide> sides) {
         this.sides = new ArrayList<>(sides);
+        changed();
     }
 
     public TimingConfiguration getTiming() {
@@ -230,6 +299,43 @@ public class Intersection {
         this.lastPhaseChangeTime = lastPhaseChangeTime;
     }
 
+    /**
+     * Gets the offset of this intersection's epoch-based cycle in ticks
+     * @return The offset, or null if none was set
+     */
+    public Integer getCycleOffsetTicks() {
+        return cycleOffsetTicks;
+    }
+
+    public void setCycleOffsetTicks(Integer cycleOffsetTicks) {
+        this.cycleOffsetTicks = cycleOffsetTicks;
+    }
+
+    /**
+     * Gets the coordination group this intersection switches with
+     * Members use their cycle offset as their shift from the group's shared clock.
+     * @return The group name, or null if the intersection runs its own cycle
+     */
+    public String getCoordinationGroup() {
+        return coordinationGroup;
+    }
+
+    public void setCoordinationGroup(String coordinationGroup) {
+        this.coordinationGroup = coordinationGroup;
+    }
+
+    /**
+     * Gets the custom phase program of this intersection
+     * @return The phases in cycle order, or null if the default NS/EW program is used
+     */
+    public List<ProgramPhase> getPhaseProgram() {
+        return phaseProgram != null ? Collections.unmodifiableList(phaseProgram) : null;
+    }
+
+    public void setPhaseProgram(List<ProgramPhase> phaseProgram) {
+        this.phaseProgram = phaseProgram != null ? new ArrayList<>(phaseProgram) : null;
+    }
+
     public TrafficLightElement getNeutralElement() {
         return neutralElement;
     }
@@ -242,13 +348,14 @@ public class Intersection {
      * Gets all element positions managed by this intersection
      */
     public Set<ElementPosition> getAllElementPositions() {
-        Set<ElementPosition> allPositions = new HashSet<>();
-
-        for (TrafficLightSide side : sides) {
-            allPositions.addAll(side.getAllElementPositions());
+        if (!isDerivedCurrent() || allElementPositions == null) {
+            Set<ElementPosition> positions = new HashSet<>();
+            for (TrafficLightSide side : sides) {
+                positions.addAll(side.getAllElementPositions());
+            }
+            allElementPositions = Collections.unmodifiableSet(positions);
         }
-
-        return allPositions;
+        return allElementPositions;
     }
 
     /**
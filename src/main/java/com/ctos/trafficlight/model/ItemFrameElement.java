@@ -57,10 +57,17 @@ public final class ItemFrameElement implements TrafficLightElement {
 
     /**
      * Finds the item frame entity at this position
+     * Uses the cached entity handle when possible and only scans the chunk on a cache miss
      * @param world The world to search in
      * @return The ItemFrame or null if not found
      */
     public ItemFrame findItemFrame(World world) {
+        // A cached handle only resolves while the frame is loaded, so no chunk checks are needed first
+        ItemFrame cached = ItemFrameHandles.lookup(world, position);
+        if (cached != null) {
+            return cached;
+        }
+
         Location loc = position.toLocation();
 
         // Check if chunk is loaded
@@ -73,10 +80,30 @@ public final class ItemFrameElement implements TrafficLightElement {
             return null;
         }
 
-        // Get all entities in the chunk and filter to item frames
+        // Cache miss: scan the chunk, then remember (and tag) what we found
         Entity[] entities = chunk.getEntities();
+        ItemFrame found = scanForItemFrame(entities);
+        if (found != null) {
+            ItemFrameHandles.remember(position, found);
+            removeDuplicates(entities, found);
+        }
+        return found;
+    }
+
+    /**
+     * Searches the entities of a chunk for the frame at this position
+     */
+    private ItemFrame scanForItemFrame(Entity[] entities) {
         BlockFace targetFacing = position.getFacing();
 
+        // Frames already tagged by ctOS for this position win
+        String positionKey = position.toString();
+        for (Entity entity : entities) {
+            if (entity instanceof ItemFrame frame && positionKey.equals(ItemFrameHandles.getTag(frame))) {
+                return frame;
+            }
+        }
+
         // Check if we need a glowing frame or regular frame
         boolean needsGlowing = frameState != null && frameState.isGlowing();
 
@@ -171,6 +198,21 @@ public final class ItemFrameElement implements TrafficLightElement {
         return null;
     }
 
+    /**
+     * Removes other frames ctOS tagged for this position (left behind by earlier respawns)
+     * Frames without the ctOS tag are never touched
+     */
+    private void removeDuplicates(Entity[] entities, ItemFrame kept) {
+        String positionKey = position.toString();
+        for (Entity entity : entities) {
+            if (entity instanceof ItemFrame frame && frame != kept
+                    && positionKey.equals(ItemFrameHandles.getTag(frame))) {
+                LOGGER.info("Removing duplicate item frame at " + position);
+                ItemFrameHandles.removeDuplicate(frame);
+            }
+        }
+    }
+
     /**
      * Finds the item frame or spawns a new one if it doesn't exist
      * @param world The world to search/spawn in
@@ -229,6 +271,8 @@ public final class ItemFrameElement implements TrafficLightElement {
                 frame.setFixed(frameState.isFixed());
             });
 
+            ItemFrameHandles.remember(position, newFrame);
+
             LOGGER.info("Spawned new item frame at " + position + " facing " + finalFacing);
             return newFrame;
         } catch (Exception e) {
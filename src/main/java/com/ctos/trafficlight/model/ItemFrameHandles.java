@@ -0,0 +1,127 @@
+package com.ctos.trafficlight.model;
+
+import com.ctos.CtOSPlugin;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.ItemFrame;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Remembers which entity backs each item frame position managed by ctOS
+ * Managed frames carry a PersistentDataContainer tag holding their position, and their UUID is
+ * cached so lookups go through World#getEntity instead of scanning every entity in the chunk.
+ * Entries are dropped when the entity leaves the world (removal or chunk unload).
+ */
+public final class ItemFrameHandles {
+    private static NamespacedKey FRAME_KEY;
+
+    private static final Map<ElementPosition, UUID> HANDLES = new HashMap<>();
+    private static final Map<UUID, ElementPosition> POSITIONS = new HashMap<>();
+
+    private static long hits;
+    private static long misses;
+    private static long duplicatesRemoved;
+
+    private ItemFrameHandles() {
+    }
+
+    /**
+     * Initializes the ownership tag key
+     */
+    public static void initialize(CtOSPlugin plugin) {
+        FRAME_KEY = new NamespacedKey(plugin, "traffic_light_frame");
+    }
+
+    /**
+     * Gets the cached frame for a position, or null on a cache miss
+     */
+    static ItemFrame lookup(World world, ElementPosition position) {
+        UUID id = HANDLES.get(position);
+        if (id != null) {
+            Entity entity = world.getEntity(id);
+            if (entity instanceof ItemFrame frame && frame.isValid()) {
+                hits++;
+                return frame;
+            }
+            forget(id);
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Tags a frame as the one managed by ctOS at a position and caches its handle
+     */
+    static void remember(ElementPosition position, ItemFrame frame) {
+        if (FRAME_KEY != null && !position.toString().equals(getTag(frame))) {
+            frame.getPersistentDataContainer().set(FRAME_KEY, PersistentDataType.STRING, position.toString());
+        }
+
+        UUID previous = HANDLES.put(position, frame.getUniqueId());
+        if (previous != null && !previous.equals(frame.getUniqueId())) {
+            POSITIONS.remove(previous);
+        }
+        POSITIONS.put(frame.getUniqueId(), position);
+    }
+
+    /**
+     * Gets the position a frame was tagged with, or null if ctOS does not manage it
+     */
+    static String getTag(Entity entity) {
+        if (FRAME_KEY == null) {
+            return null;
+        }
+        return entity.getPersistentDataContainer().get(FRAME_KEY, PersistentDataType.STRING);
+    }
+
+    /**
+     * Removes a duplicate frame that ctOS spawned for a position it already manages
+     */
+    static void removeDuplicate(ItemFrame duplicate) {
+        forget(duplicate.getUniqueId());
+        duplicate.remove();
+        duplicatesRemoved++;
+    }
+
+    /**
+     * Drops the cached handle of an entity (called when it leaves the world)
+     */
+    public static void forget(UUID entityId) {
+        ElementPosition position = POSITIONS.remove(entityId);
+        if (position != null) {
+            HANDLES.remove(position, entityId);
+        }
+    }
+
+    public static int size() {
+        return HANDLES.size();
+    }
+
+    public static long getHits() {
+        return hits;
+    }
+
+    public static long getMisses() {
+        return misses;
+    }
+
+    public static long getDuplicatesRemoved() {
+        return duplicatesRemoved;
+    }
+
+    /**
+     * Drops every cached handle and resets the counters (on plugin disable)
+     */
+    public static void clear() {
+        HANDLES.clear();
+        POSITIONS.clear();
+        hits = 0;
+        misses = 0;
+        duplicatesRemoved = 0;
+    }
+}
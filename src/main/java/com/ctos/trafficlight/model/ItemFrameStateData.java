@@ -15,6 +15,9 @@ import java.util.Objects;
  * Stores the complete state of an item frame for serialization and restoration.
  */
 public class ItemFrameStateData {
+    // Item frame write counters (main thread only)
+    private static long propertyWrites;
+    private static long skippedPropertyWrites;
 
     private Map<String, Object> serializedItem; // ItemStack.serialize()
     private Rotation rotation;
@@ -28,6 +31,8 @@ public class ItemFrameStateData {
     private double exactY;
     private double exactZ;
 
+    private ItemStack deserializedItem; // Resolved lazily from serializedItem
+
     public ItemFrameStateData(Map<String, Object> serializedItem, Rotation rotation,
                                BlockFace facing, boolean visible, boolean glowing, boolean fixed) {
         this(serializedItem, rotation, facing, visible, glowing, fixed, 0, 0, 0);
@@ -74,36 +79,109 @@ public class ItemFrameStateData {
 
     /**
      * Applies this state to an ItemFrame
+     * Each property is compared with the live frame first, so unchanged values are never
+     * written (every write sends entity metadata to all tracking players)
      * @param itemFrame The item frame to update
      * @param playSound Whether to play the item placement sound
      */
     public void applyToItemFrame(ItemFrame itemFrame, boolean playSound) {
+        ItemStack item = getItem();
+        boolean changeItem = !isShowing(itemFrame, item);
+
         // Temporarily set fixed=true to prevent item drops when changing the item
-        boolean wasFixed = itemFrame.isFixed();
-        itemFrame.setFixed(true);
+        if (changeItem && !itemFrame.isFixed()) {
+            itemFrame.setFixed(true);
+            propertyWrites++;
+        }
 
         try {
             // Set the item (won't drop because frame is fixed)
-            if (serializedItem != null) {
-                ItemStack item = ItemStack.deserialize(serializedItem);
+            if (changeItem) {
                 itemFrame.setItem(item, playSound);
+                propertyWrites++;
             } else {
-                itemFrame.setItem(null, playSound);
+                skippedPropertyWrites++;
             }
 
             // Set rotation
             if (rotation != null) {
-                itemFrame.setRotation(rotation);
+                if (itemFrame.getRotation() != rotation) {
+                    itemFrame.setRotation(rotation);
+                    propertyWrites++;
+                } else {
+                    skippedPropertyWrites++;
+                }
             }
 
             // Set visibility
-            itemFrame.setVisible(visible);
+            if (itemFrame.isVisible() != visible) {
+                itemFrame.setVisible(visible);
+                propertyWrites++;
+            } else {
+                skippedPropertyWrites++;
+            }
         } finally {
             // Restore the original fixed state
-            itemFrame.setFixed(fixed);
+            if (itemFrame.isFixed() != fixed) {
+                itemFrame.setFixed(fixed);
+                propertyWrites++;
+            }
+        }
+    }
+
+    /**
+     * Checks if a frame already shows an item (null = empty frame)
+     */
+    public static boolean isShowing(ItemFrame itemFrame, ItemStack item) {
+        ItemStack current = itemFrame.getItem();
+        if (item == null) {
+            return current == null || current.getType().isAir();
+        }
+        return item.equals(current);
+    }
+
+    /**
+     * Gets the displayed item, deserialized once and cached
+     * The instance is shared and must not be modified (ItemFrame#setItem copies it)
+     * @return The item, or null for an empty frame
+     */
+    public ItemStack getItem() {
+        if (serializedItem == null) {
+            return null;
+        }
+        ItemStack item = deserializedItem;
+        if (item == null) {
+            item = ItemStack.deserialize(serializedItem);
+            deserializedItem = item;
+        }
+        return item;
+    }
+
+    /**
+     * Counts a frame property write made outside applyToItemFrame
+     */
+    public static void recordPropertyWrite(boolean written) {
+        if (written) {
+            propertyWrites++;
+        } else {
+            skippedPropertyWrites++;
         }
     }
 
+    /**
+     * Gets the number of item frame property writes performed
+     */
+    public static long getPropertyWrites() {
+        return propertyWrites;
+    }
+
+    /**
+     * Gets the number of item frame property writes skipped because the value was unchanged
+     */
+    public static long getSkippedPropertyWrites() {
+        return skippedPropertyWrites;
+    }
+
     /**
      * Creates a deep copy
      */
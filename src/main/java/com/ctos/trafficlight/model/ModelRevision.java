@@ -0,0 +1,22 @@
+package com.ctos.trafficlight.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide revision counter for model mutations
+ * Every mutation of an intersection or side stamps it with the next revision, so memoized
+ * derived results stay valid while the stamps they were built from are unchanged.
+ */
+final class ModelRevision {
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    private ModelRevision() {
+    }
+
+    /**
+     * Gets a revision higher than every one handed out before
+     */
+    static long next() {
+        return COUNTER.incrementAndGet();
+    }
+}
@@ -0,0 +1,41 @@
+package com.ctos.trafficlight.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One row of an intersection's custom phase program
+ * Holds the phase duration and, for every side (by index), the vehicle light shown and
+ * whether the side's pedestrian lights are green.
+ * Immutable: the lists are copied in and handed out as read-only views.
+ */
+public class ProgramPhase {
+    private String name;
+    private int durationTicks;
+    private List<LightPhase> vehicleLights; // Light shown by each side's vehicle lights
+    private List<Boolean> pedestrianGreen; // Pedestrian state of each side (null = red everywhere)
+
+    public ProgramPhase(String name, int durationTicks, List<LightPhase> vehicleLights, List<Boolean> pedestrianGreen) {
+        this.name = name;
+        this.durationTicks = durationTicks;
+        this.vehicleLights = new ArrayList<>(vehicleLights);
+        this.pedestrianGreen = pedestrianGreen != null ? new ArrayList<>(pedestrianGreen) : null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDurationTicks() {
+        return durationTicks;
+    }
+
+    public List<LightPhase> getVehicleLights() {
+        return vehicleLights != null ? Collections.unmodifiableList(vehicleLights) : null;
+    }
+
+    public List<Boolean> getPedestrianGreen() {
+        return pedestrianGreen != null ? Collections.unmodifiableList(pedestrianGreen) : null;
+    }
+}
@@ -3,12 +3,12 @@ package com.ctos.trafficlight.model;
 import org.bukkit.World;
 
 /**
- * Sealed interface representing any element of a traffic light (block or item frame).
+ * Sealed interface representing any element of a traffic light (block, item frame or display entity).
  */
-public sealed interface TrafficLightElement permits BlockElement, ItemFrameElement {
+public sealed interface TrafficLightElement permits BlockElement, ItemFrameElement, DisplayElement {
 
     /**
-     * Returns the element type identifier ("block" or "item_frame")
+     * Returns the element type identifier ("block", "item_frame" or "display")
      */
     String getElementType();
 
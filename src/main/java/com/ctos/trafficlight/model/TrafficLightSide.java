@@ -4,8 +4,16 @@ import java.util.*;
 
 /**
  * Represents one side/direction of a traffic light intersection
- * Each side has blocks for red, orange, and green lights, plus optional pedestrian lights.
- * Supports both blocks and item frames as light elements.
+ * Each side has elements for red, orange, and green lights, plus optional pedestrian lights.
+ * Elements can be blocks, item frames or display entities.
+ *
+ * Sides saved before elements existed store their blocks in separate legacy fields; these are
+ * only read from old files and converted into block elements once, when the side is loaded
+ * (see migrateLegacyBlocks). Once converted they are null, so they are no longer written.
+ *
+ * Getters hand out read-only views of the live collections instead of copies; derived results
+ * (all blocks, all elements) are memoized until the next mutation. Views must not be held
+ * across mutations of the side if a stable snapshot is needed.
  */
 public class TrafficLightSide {
     /**
@@ -18,168 +26,141 @@ public class TrafficLightSide {
     }
 
     private String direction; // e.g., "North", "South", "East", "West"
-    private Map<LightPhase, List<BlockPosition>> lightBlocks; // Blocks for each phase
-    private Map<BlockPosition, BlockStateData> blockStates; // Original block data for each position
-    private List<BlockPosition> pedestrianGreenBlocks; // Pedestrian green light blocks
-    private Map<BlockPosition, BlockStateData> pedestrianGreenBlockStates; // Pedestrian green block states
-    private List<BlockPosition> pedestrianRedBlocks; // Pedestrian red light blocks
-    private Map<BlockPosition, BlockStateData> pedestrianRedBlockStates; // Pedestrian red block states
-
-    // New element-based storage (supports both blocks and item frames)
+
+    // Legacy block storage, read from old files only (null once migrated)
+    private Map<LightPhase, List<BlockPosition>> lightBlocks;
+    private Map<BlockPosition, BlockStateData> blockStates;
+    private List<BlockPosition> pedestrianGreenBlocks;
+    private Map<BlockPosition, BlockStateData> pedestrianGreenBlockStates;
+    private List<BlockPosition> pedestrianRedBlocks;
+    private Map<BlockPosition, BlockStateData> pedestrianRedBlockStates;
+
+    // Element storage (blocks, item frames and displays)
     private Map<LightPhase, List<TrafficLightElement>> lightElements;
     private Map<ElementPosition, TrafficLightElement> elementStates;
     private List<TrafficLightElement> pedestrianGreenElements;
     private List<TrafficLightElement> pedestrianRedElements;
 
+    // Views and derived results, rebuilt lazily after a mutation (not persisted)
+    private transient long revision;
+    private transient Map<LightPhase, List<TrafficLightElement>> lightElementsView;
+    private transient List<BlockPosition> allBlocks;
+    private transient List<TrafficLightElement> allElements;
+
     public TrafficLightSide(String direction) {
         this.direction = direction;
-        this.lightBlocks = new HashMap<>();
-        this.blockStates = new HashMap<>();
-        this.pedestrianGreenBlocks = new ArrayList<>();
-        this.pedestrianGreenBlockStates = new HashMap<>();
-        this.pedestrianRedBlocks = new ArrayList<>();
-        this.pedestrianRedBlockStates = new HashMap<>();
-
-        // Initialize element-based storage
-        this.lightElements = new HashMap<>();
-        this.elementStates = new HashMap<>();
-        this.pedestrianGreenElements = new ArrayList<>();
-        this.pedestrianRedElements = new ArrayList<>();
-
-        // Initialize empty lists for each phase
-        for (LightPhase phase : LightPhase.values()) {
-            lightBlocks.put(phase, new ArrayList<>());
-            lightElements.put(phase, new ArrayList<>());
-        }
+        ensureElementCollectionsInitialized();
     }
 
     /**
-     * Sets the blocks for a specific light phase
+     * Converts the legacy block storage of a side loaded from an old file into block elements
+     * Blocks that already have an element at their position (older versions saved both) are
+     * not duplicated. The legacy fields are cleared, so the side is saved in the element form.
+     * Legacy vehicle lights were shown facing the side's drivers when lit and dark alike, while
+     * block elements keep their captured facing when dark, so their state is stored turned towards
+     * the side's drivers.
+     * @return The number of blocks converted
      */
-    public void setLightBlocks(LightPhase phase, List<BlockPosition> blocks, List<BlockStateData> states) {
-        if (blocks.size() != states.size()) {
-            throw new IllegalArgumentException("Blocks and states lists must have same size");
+    public int migrateLegacyBlocks() {
+        ensureElementCollectionsInitialized();
+        int migrated = 0;
+        String sideFacing = BlockStateData.facingForDirection(direction);
+        if (lightBlocks != null) {
+            for (Map.Entry<LightPhase, List<BlockPosition>> entry : lightBlocks.entrySet()) {
+                if (entry.getKey() == null || entry.getValue() == null) {
+                    continue;
+                }
+                List<TrafficLightElement> target = lightElements.computeIfAbsent(entry.getKey(), phase -> new ArrayList<>());
+                for (BlockPosition position : entry.getValue()) {
+                    migrated += migrateBlock(target, position, legacyState(blockStates, position), sideFacing);
+                }
+            }
         }
-
-        lightBlocks.put(phase, new ArrayList<>(blocks));
-
-        // Store block states
-        for (int i = 0; i < blocks.size(); i++) {
-            blockStates.put(blocks.get(i), states.get(i));
+        if (pedestrianGreenBlocks != null) {
+            for (BlockPosition position : pedestrianGreenBlocks) {
+                migrated += migrateBlock(pedestrianGreenElements, position, legacyState(pedestrianGreenBlockStates, position), null);
+            }
         }
-    }
-
-    /**
-     * Adds a single block for a specific light phase
-     */
-    public void addLightBlock(LightPhase phase, BlockPosition position, BlockStateData state) {
-        lightBlocks.get(phase).add(position);
-        blockStates.put(position, state);
-    }
-
-    /**
-     * Sets the pedestrian green light blocks
-     */
-    public void setPedestrianGreenBlocks(List<BlockPosition> blocks, List<BlockStateData> states) {
-        if (blocks.size() != states.size()) {
-            throw new IllegalArgumentException("Blocks and states lists must have same size");
+        if (pedestrianRedBlocks != null) {
+            for (BlockPosition position : pedestrianRedBlocks) {
+                migrated += migrateBlock(pedestrianRedElements, position, legacyState(pedestrianRedBlockStates, position), null);
+            }
         }
 
-        this.pedestrianGreenBlocks = new ArrayList<>(blocks);
-
-        // Store pedestrian green block states
-        for (int i = 0; i < blocks.size(); i++) {
-            pedestrianGreenBlockStates.put(blocks.get(i), states.get(i));
+        boolean hadLegacy = lightBlocks != null || blockStates != null || pedestrianGreenBlocks != null
+                || pedestrianGreenBlockStates != null || pedestrianRedBlocks != null || pedestrianRedBlockStates != null;
+        lightBlocks = null;
+        blockStates = null;
+        pedestrianGreenBlocks = null;
+        pedestrianGreenBlockStates = null;
+        pedestrianRedBlocks = null;
+        pedestrianRedBlockStates = null;
+        if (hadLegacy) {
+            changed();
         }
+        return migrated;
     }
 
     /**
-     * Adds a single pedestrian green light block
-     */
-    public void addPedestrianGreenBlock(BlockPosition position, BlockStateData state) {
-        pedestrianGreenBlocks.add(position);
-        pedestrianGreenBlockStates.put(position, state);
-    }
-
-    /**
-     * Sets the pedestrian red light blocks
+     * @param facing Facing the block was shown with by the legacy path, or null for its captured one
      */
-    public void setPedestrianRedBlocks(List<BlockPosition> blocks, List<BlockStateData> states) {
-        if (blocks.size() != states.size()) {
-            throw new IllegalArgumentException("Blocks and states lists must have same size");
-        }
-
-        this.pedestrianRedBlocks = new ArrayList<>(blocks);
-
-        // Store pedestrian red block states
-        for (int i = 0; i < blocks.size(); i++) {
-            pedestrianRedBlockStates.put(blocks.get(i), states.get(i));
+    private int migrateBlock(List<TrafficLightElement> target, BlockPosition position, BlockStateData state, String facing) {
+        if (position == null) {
+            return 0;
+        }
+        ElementPosition elementPosition = ElementPosition.fromBlockPosition(position);
+        TrafficLightElement existing = elementStates.get(elementPosition);
+        if (existing != null) {
+            // The legacy twin was the one rendered: its element keeps the orientation it was shown with
+            if (facing != null && existing instanceof BlockElement block && block.getBlockStateData() != null) {
+                BlockStateData turned = block.getBlockStateData().withFacing(facing);
+                if (turned != block.getBlockStateData()) {
+                    replaceElement(block, new BlockElement(elementPosition, turned));
+                }
+            }
+            return 0;
         }
+        BlockElement element = new BlockElement(elementPosition, state != null ? state.withFacing(facing) : null);
+        target.add(element);
+        elementStates.put(elementPosition, element);
+        return 1;
     }
 
-    /**
-     * Adds a single pedestrian red light block
-     */
-    public void addPedestrianRedBlock(BlockPosition position, BlockStateData state) {
-        pedestrianRedBlocks.add(position);
-        pedestrianRedBlockStates.put(position, state);
-    }
-
-    /**
-     * Gets all blocks managed by this side (for any phase)
-     */
-    public List<BlockPosition> getAllBlocks() {
-        Set<BlockPosition> allBlocks = new HashSet<>();
-
-        for (List<BlockPosition> blocks : lightBlocks.values()) {
-            allBlocks.addAll(blocks);
+    private void replaceElement(TrafficLightElement old, TrafficLightElement replacement) {
+        for (List<TrafficLightElement> elements : lightElements.values()) {
+            elements.replaceAll(element -> element == old ? replacement : element);
         }
-
-        allBlocks.addAll(pedestrianGreenBlocks);
-        allBlocks.addAll(pedestrianRedBlocks);
-
-        return new ArrayList<>(allBlocks);
-    }
-
-    /**
-     * Gets the blocks for a specific phase
-     */
-    public List<BlockPosition> getLightBlocks(LightPhase phase) {
-        return new ArrayList<>(lightBlocks.get(phase));
+        pedestrianGreenElements.replaceAll(element -> element == old ? replacement : element);
+        pedestrianRedElements.replaceAll(element -> element == old ? replacement : element);
+        elementStates.put(replacement.getPosition(), replacement);
     }
 
     /**
-     * Gets the original block state for a position
+     * Looks up a legacy block state, falling back to the vehicle light states (older files
+     * stored pedestrian states there too)
      */
-    public BlockStateData getBlockState(BlockPosition position) {
-        BlockStateData state = blockStates.get(position);
-        if (state == null) {
-            state = pedestrianGreenBlockStates.get(position);
-        }
-        if (state == null) {
-            state = pedestrianRedBlockStates.get(position);
+    private BlockStateData legacyState(Map<BlockPosition, BlockStateData> states, BlockPosition position) {
+        BlockStateData state = states != null ? states.get(position) : null;
+        if (state == null && blockStates != null) {
+            state = blockStates.get(position);
         }
         return state;
     }
 
     /**
-     * Checks if this side is fully configured
+     * Gets the positions of all block elements of this side (for any phase)
      */
-    public boolean isComplete() {
-        // Must have at least one block for each light phase
-        for (LightPhase phase : LightPhase.values()) {
-            if (lightBlocks.get(phase).isEmpty()) {
-                return false;
+    public List<BlockPosition> getAllBlocks() {
+        if (allBlocks == null) {
+            Set<BlockPosition> blocks = new LinkedHashSet<>();
+            for (TrafficLightElement element : getAllElements()) {
+                if (element instanceof BlockElement block) {
+                    blocks.add(block.toBlockPosition());
+                }
             }
+            allBlocks = Collections.unmodifiableList(new ArrayList<>(blocks));
         }
-        return true;
-    }
-
-    /**
-     * Checks if this side has pedestrian lights configured
-     */
-    public boolean hasPedestrianLights() {
-        return !pedestrianGreenBlocks.isEmpty() && !pedestrianRedBlocks.isEmpty();
+        return allBlocks;
     }
 
     /**
@@ -206,34 +187,39 @@ public class TrafficLightSide {
 
     public void setDirection(String direction) {
         this.direction = direction;
+        changed();
     }
 
-    public List<BlockPosition> getPedestrianGreenBlocks() {
-        return new ArrayList<>(pedestrianGreenBlocks);
-    }
-
-    public List<BlockPosition> getPedestrianRedBlocks() {
-        return new ArrayList<>(pedestrianRedBlocks);
-    }
-
-    public Map<BlockPosition, BlockStateData> getBlockStates() {
-        return new HashMap<>(blockStates);
-    }
-
-    public Map<BlockPosition, BlockStateData> getPedestrianGreenBlockStates() {
-        return new HashMap<>(pedestrianGreenBlockStates);
+    /**
+     * Wraps a phase map and its lists into read-only views
+     */
+    private static <T> Map<LightPhase, List<T>> readOnly(Map<LightPhase, List<T>> byPhase) {
+        Map<LightPhase, List<T>> view = new EnumMap<>(LightPhase.class);
+        if (byPhase != null) {
+            for (Map.Entry<LightPhase, List<T>> entry : byPhase.entrySet()) {
+                if (entry.getValue() != null) {
+                    view.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+                }
+            }
+        }
+        return Collections.unmodifiableMap(view);
     }
 
-    public Map<BlockPosition, BlockStateData> getPedestrianRedBlockStates() {
-        return new HashMap<>(pedestrianRedBlockStates);
+    /**
+     * Stamps a mutation: drops the views and derived results built from the previous state
+     */
+    private void changed() {
+        revision = ModelRevision.next();
+        lightElementsView = null;
+        allBlocks = null;
+        allElements = null;
     }
 
-    public Map<LightPhase, List<BlockPosition>> getLightBlocksMap() {
-        Map<LightPhase, List<BlockPosition>> copy = new HashMap<>();
-        for (Map.Entry<LightPhase, List<BlockPosition>> entry : lightBlocks.entrySet()) {
-            copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
-        }
-        return copy;
+    /**
+     * Gets the revision of the last mutation of this side (0 if unchanged since it was loaded)
+     */
+    long getRevision() {
+        return revision;
     }
 
     // ==================== Element-based methods ====================
@@ -266,6 +252,7 @@ public class TrafficLightSide {
         ensureElementCollectionsInitialized();
         lightElements.get(phase).add(element);
         elementStates.put(element.getPosition(), element);
+        changed();
     }
 
     /**
@@ -277,37 +264,39 @@ public class TrafficLightSide {
         for (TrafficLightElement element : elements) {
             elementStates.put(element.getPosition(), element);
         }
+        changed();
     }
 
     /**
      * Gets the light elements for a specific phase
      */
     public List<TrafficLightElement> getLightElements(LightPhase phase) {
-        if (lightElements == null || lightElements.get(phase) == null) {
-            return new ArrayList<>();
-        }
-        return new ArrayList<>(lightElements.get(phase));
+        List<TrafficLightElement> elements = getLightElementsMap().get(phase);
+        return elements != null ? elements : List.of();
     }
 
     /**
      * Gets all light elements across all phases
      */
     public List<TrafficLightElement> getAllElements() {
-        List<TrafficLightElement> all = new ArrayList<>();
-        if (lightElements != null) {
-            for (List<TrafficLightElement> elements : lightElements.values()) {
-                if (elements != null) {
-                    all.addAll(elements);
+        if (allElements == null) {
+            List<TrafficLightElement> all = new ArrayList<>();
+            if (lightElements != null) {
+                for (List<TrafficLightElement> elements : lightElements.values()) {
+                    if (elements != null) {
+                        all.addAll(elements);
+                    }
                 }
             }
+            if (pedestrianGreenElements != null) {
+                all.addAll(pedestrianGreenElements);
+            }
+            if (pedestrianRedElements != null) {
+                all.addAll(pedestrianRedElements);
+            }
+            allElements = Collections.unmodifiableList(all);
         }
-        if (pedestrianGreenElements != null) {
-            all.addAll(pedestrianGreenElements);
-        }
-        if (pedestrianRedElements != null) {
-            all.addAll(pedestrianRedElements);
-        }
-        return all;
+        return allElements;
     }
 
     /**
@@ -327,6 +316,7 @@ public class TrafficLightSide {
         ensureElementCollectionsInitialized();
         pedestrianGreenElements.add(element);
         elementStates.put(element.getPosition(), element);
+        changed();
     }
 
     /**
@@ -338,6 +328,7 @@ public class TrafficLightSide {
         for (TrafficLightElement element : elements) {
             elementStates.put(element.getPosition(), element);
         }
+        changed();
     }
 
     /**
@@ -345,9 +336,9 @@ public class TrafficLightSide {
      */
     public List<TrafficLightElement> getPedestrianGreenElements() {
         if (pedestrianGreenElements == null) {
-            return new ArrayList<>();
+            return List.of();
         }
-        return new ArrayList<>(pedestrianGreenElements);
+        return Collections.unmodifiableList(pedestrianGreenElements);
     }
 
     /**
@@ -357,6 +348,7 @@ public class TrafficLightSide {
         ensureElementCollectionsInitialized();
         pedestrianRedElements.add(element);
         elementStates.put(element.getPosition(), element);
+        changed();
     }
 
     /**
@@ -368,6 +360,7 @@ public class TrafficLightSide {
         for (TrafficLightElement element : elements) {
             elementStates.put(element.getPosition(), element);
         }
+        changed();
     }
 
     /**
@@ -375,9 +368,9 @@ public class TrafficLightSide {
      */
     public List<TrafficLightElement> getPedestrianRedElements() {
         if (pedestrianRedElements == null) {
-            return new ArrayList<>();
+            return List.of();
         }
-        return new ArrayList<>(pedestrianRedElements);
+        return Collections.unmodifiableList(pedestrianRedElements);
     }
 
     /**
@@ -425,9 +418,9 @@ public class TrafficLightSide {
      */
     public Set<ElementPosition> getAllElementPositions() {
         if (elementStates == null) {
-            return new HashSet<>();
+            return Set.of();
         }
-        return new HashSet<>(elementStates.keySet());
+        return Collections.unmodifiableSet(elementStates.keySet());
     }
 
     /**
@@ -435,24 +428,18 @@ public class TrafficLightSide {
      */
     public Map<ElementPosition, TrafficLightElement> getElementStates() {
         if (elementStates == null) {
-            return new HashMap<>();
+            return Map.of();
         }
-        return new HashMap<>(elementStates);
+        return Collections.unmodifiableMap(elementStates);
     }
 
     /**
      * Gets the light elements map
      */
     public Map<LightPhase, List<TrafficLightElement>> getLightElementsMap() {
-        Map<LightPhase, List<TrafficLightElement>> copy = new HashMap<>();
-        if (lightElements == null) {
-            return copy;
-        }
-        for (Map.Entry<LightPhase, List<TrafficLightElement>> entry : lightElements.entrySet()) {
-            if (entry.getValue() != null) {
-                copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
-            }
+        if (lightElementsView == null) {
+            lightElementsView = readOnly(lightElements);
         }
-        return copy;
+        return lightElementsView;
     }
 }
@@ -0,0 +1,87 @@
+package com.ctos.trafficlight.render;
+
+import com.ctos.trafficlight.model.BlockStateData;
+import com.ctos.trafficlight.model.ElementPosition;
+import com.ctos.trafficlight.model.LightPhase;
+import org.bukkit.World;
+import org.bukkit.block.Skull;
+import org.bukkit.block.data.BlockData;
+
+/**
+ * A block output: each appearance is a block state plus the facing forced on player heads
+ */
+public final class BlockTarget extends RenderTarget {
+    private final BlockStateData litState;
+    private final String litFacing;
+    private final BlockStateData darkState;
+    private final String darkFacing;
+
+    // Head states shown to clients in client-side rendering mode, built on first use
+    private Skull litSkull;
+    private Skull darkSkull;
+    private boolean skullsBuilt;
+
+    BlockTarget(ElementPosition position, LightPhase phase, boolean pedestrian,
+                BlockStateData litState, String litFacing,
+                BlockStateData darkState, String darkFacing) {
+        super(position, phase, pedestrian);
+        this.litState = litState;
+        this.litFacing = litFacing;
+        this.darkState = darkState;
+        this.darkFacing = darkFacing;
+    }
+
+    /**
+     * Resolves both appearances up front so the first phase change does not pay for it
+     */
+    @Override
+    void warm() {
+        if (litState != null) {
+            litState.warm(litFacing);
+        }
+        if (darkState != null) {
+            darkState.warm(darkFacing);
+        }
+    }
+
+    @Override
+    protected void write(World world, boolean lit) {
+        BlockStateData state = lit ? litState : darkState;
+        if (state == null) {
+            return; // Nothing to show for this appearance (reported when the plan was compiled)
+        }
+        ElementPosition position = getPosition();
+        state.applyToBlockWithFacing(world.getBlockAt(position.getX(), position.getY(), position.getZ()),
+                lit ? litFacing : darkFacing);
+    }
+
+    /**
+     * Gets the block data of an appearance for client-side rendering
+     * @return The shared block data, or null if the appearance has no state
+     */
+    BlockData getClientBlockData(boolean lit) {
+        BlockStateData state = lit ? litState : darkState;
+        return state != null ? state.getBlockData(lit ? litFacing : darkFacing) : null;
+    }
+
+    /**
+     * Gets the head shown by an appearance for client-side rendering
+     * @return The detached skull state, or null if the appearance is not a player head
+     */
+    Skull getClientSkull(boolean lit) {
+        if (!skullsBuilt) {
+            litSkull = litState != null ? litState.createDetachedSkull(litFacing) : null;
+            darkSkull = darkState != null ? darkState.createDetachedSkull(darkFacing) : null;
+            skullsBuilt = true;
+        }
+        return lit ? litSkull : darkSkull;
+    }
+
+    public BlockStateData getLitState() {
+        return litState;
+    }
+
+    public BlockStateData getDarkState() {
+        return darkState;
+    }
+}
@@ -0,0 +1,342 @@
+package com.ctos.trafficlight.render;
+
+import com.ctos.trafficlight.model.ElementPosition;
+import com.ctos.util.WorldRegistry;
+import io.papermc.paper.math.Position;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Skull;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Client-side rendering backend for block outputs
+ *
+ * The real blocks are written once to their dark (neutral) appearance and then left alone, so
+ * light changes never dirty chunks. Instead, the appearance of each block output is sent to the
+ * players tracking its chunk, batched into one multi-block change per chunk section, with player
+ * heads following as skull updates. Players that start tracking a chunk receive its full state.
+ * Item frames have no per-viewer metadata API and stay on the world-backed render queue.
+ * Not thread-safe: use from the main thread only.
+ */
+public final class ClientRenderer {
+    private final Map<BlockTarget, PendingSend> pending;
+    private final Map<BlockTarget, Boolean> shown; // Appearance last sent for each output
+    private final Map<Integer, Map<Long, List<BlockTarget>>> targetsByChunk; // world id -> chunk key -> outputs
+    private final Set<ElementPosition> neutralized; // Real blocks already written to their neutral state
+
+    private boolean enabled;
+
+    private long sectionBatches;
+    private long blockChanges;
+    private long skullUpdates;
+    private long neutralWrites;
+    private long chunkSends;
+
+    private static final class PendingSend {
+        final BlockTarget target;
+        boolean lit;
+        long notBefore; // Sends held back until the world's own block update for a neutral write went out
+
+        PendingSend(BlockTarget target, boolean lit, long notBefore) {
+            this.target = target;
+            this.lit = lit;
+            this.notBefore = notBefore;
+        }
+    }
+
+    /**
+     * Outputs of one chunk section gathered for a single multi-block change
+     */
+    private static final class SectionBatch {
+        final int chunkX;
+        final int chunkZ;
+        final Map<Position, BlockData> blocks = new HashMap<>();
+        final List<BlockTarget> skulls = new ArrayList<>(0);
+        final List<Boolean> skullLit = new ArrayList<>(0);
+
+        SectionBatch(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+
+    public ClientRenderer() {
+        this.pending = new LinkedHashMap<>();
+        this.shown = new HashMap<>();
+        this.targetsByChunk = new HashMap<>();
+        this.neutralized = new HashSet<>();
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Checks if a target is rendered by this backend (block outputs only)
+     */
+    public boolean handles(RenderTarget target) {
+        return enabled && target instanceof BlockTarget;
+    }
+
+    /**
+     * Indexes the block outputs of a plan by chunk, for players that start tracking them
+     * Nothing is tracked in world mode; switching modes restarts the animator, which registers again
+     */
+    public void register(RenderPlan plan) {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < plan.getTargetCount(); i++) {
+            if (plan.getTarget(i) instanceof BlockTarget target) {
+                targetsByChunk.computeIfAbsent(target.getPosition().getWorldId(), world -> new HashMap<>())
+                        .computeIfAbsent(target.getChunkKey(), key -> new ArrayList<>())
+                        .add(target);
+            }
+        }
+    }
+
+    /**
+     * Forgets the block outputs of a plan
+     */
+    public void unregister(RenderPlan plan) {
+        for (int i = 0; i < plan.getTargetCount(); i++) {
+            if (!(plan.getTarget(i) instanceof BlockTarget target)) {
+                continue;
+            }
+            pending.remove(target);
+            shown.remove(target);
+            neutralized.remove(target.getPosition());
+
+            Map<Long, List<BlockTarget>> chunks = targetsByChunk.get(target.getPosition().getWorldId());
+            if (chunks == null) {
+                continue;
+            }
+            long chunkKey = target.getChunkKey();
+            List<BlockTarget> targets = chunks.get(chunkKey);
+            if (targets != null) {
+                targets.remove(target);
+                if (targets.isEmpty()) {
+                    chunks.remove(chunkKey);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues the appearance of a block output for its viewers
+     * The first time an output is seen while its chunk is loaded, the real block is set to its
+     * neutral appearance and the send waits a tick, so the world's own update does not override it
+     */
+    public void enqueue(RenderTarget renderTarget, boolean lit, long currentTick) {
+        BlockTarget target = (BlockTarget) renderTarget;
+        long notBefore = currentTick;
+        if (!neutralized.contains(target.getPosition()) && neutralize(target)) {
+            notBefore = currentTick + 1;
+        }
+
+        PendingSend existing = pending.get(target);
+        if (existing != null) {
+            existing.lit = lit;
+            existing.notBefore = Math.max(existing.notBefore, notBefore);
+            return;
+        }
+        pending.put(target, new PendingSend(target, lit, notBefore));
+    }
+
+    /**
+     * Writes the neutral appearance to the real block if its chunk is loaded
+     * @return true if a write was made
+     */
+    private boolean neutralize(BlockTarget target) {
+        World world = target.getPosition().getWorld();
+        if (world == null || !world.isChunkLoaded(target.getChunkX(), target.getChunkZ())) {
+            return false;
+        }
+        target.applyLoaded(world, false);
+        neutralized.add(target.getPosition());
+        neutralWrites++;
+        return true;
+    }
+
+    /**
+     * Sends the due appearances to the players tracking their chunks, one batch per chunk section
+     */
+    public void flush(long currentTick) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Map<Long, SectionBatch>> batches = new HashMap<>();
+        Iterator<PendingSend> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            PendingSend send = iterator.next();
+            if (send.notBefore > currentTick) {
+                continue;
+            }
+            iterator.remove();
+            shown.put(send.target, send.lit);
+            addToBatch(batches, send.target, send.lit);
+        }
+        sendToViewers(batches);
+    }
+
+    /**
+     * Shows the real (neutral) blocks again to every player that was sent a lit appearance
+     * Used when leaving client-side mode, as rewriting a block with its current state sends nothing
+     */
+    public void restoreViewers() {
+        Map<Integer, Map<Long, SectionBatch>> batches = new HashMap<>();
+        for (Map.Entry<BlockTarget, Boolean> entry : shown.entrySet()) {
+            if (entry.getValue()) {
+                addToBatch(batches, entry.getKey(), false);
+            }
+        }
+        sendToViewers(batches);
+    }
+
+    private void sendToViewers(Map<Integer, Map<Long, SectionBatch>> batches) {
+        for (Map.Entry<Integer, Map<Long, SectionBatch>> entry : batches.entrySet()) {
+            World world = WorldRegistry.get(entry.getKey());
+            if (world == null) {
+                continue;
+            }
+            Map<Long, Collection<Player>> viewersByChunk = new HashMap<>();
+            for (SectionBatch batch : entry.getValue().values()) {
+                Collection<Player> viewers = viewersByChunk.computeIfAbsent(Chunk.getChunkKey(batch.chunkX, batch.chunkZ),
+                        key -> world.getPlayersSeeingChunk(batch.chunkX, batch.chunkZ));
+                for (Player player : viewers) {
+                    send(player, world, batch);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the full state of a chunk's block outputs to a player that just started tracking it
+     */
+    public void onPlayerChunkLoad(Player player, Chunk chunk) {
+        if (!enabled) {
+            return;
+        }
+        World world = chunk.getWorld();
+        int worldId = WorldRegistry.lookup(world.getName());
+        if (worldId < 0) {
+            return; // No traffic lights in this world
+        }
+        Map<Long, List<BlockTarget>> chunks = targetsByChunk.get(worldId);
+        if (chunks == null) {
+            return;
+        }
+        List<BlockTarget> targets = chunks.get(chunk.getChunkKey());
+        if (targets == null) {
+            return;
+        }
+
+        Map<Integer, Map<Long, SectionBatch>> batches = new HashMap<>();
+        for (BlockTarget target : targets) {
+            Boolean lit = shown.get(target);
+            if (lit != null && lit) {
+                addToBatch(batches, target, true); // The real block already shows the neutral appearance
+            }
+        }
+        Map<Long, SectionBatch> sections = batches.get(worldId);
+        if (sections == null) {
+            return;
+        }
+        for (SectionBatch batch : sections.values()) {
+            send(player, world, batch);
+        }
+        chunkSends++;
+    }
+
+    private void addToBatch(Map<Integer, Map<Long, SectionBatch>> batches, BlockTarget target, boolean lit) {
+        BlockData data = target.getClientBlockData(lit);
+        if (data == null) {
+            return;
+        }
+
+        ElementPosition position = target.getPosition();
+        int chunkX = target.getChunkX();
+        int chunkZ = target.getChunkZ();
+        SectionBatch batch = batches.computeIfAbsent(position.getWorldId(), world -> new HashMap<>())
+                .computeIfAbsent(sectionKey(chunkX, position.getY() >> 4, chunkZ), key -> new SectionBatch(chunkX, chunkZ));
+        batch.blocks.put(Position.block(position.getX(), position.getY(), position.getZ()), data);
+        if (target.getClientSkull(lit) != null) {
+            batch.skulls.add(target);
+            batch.skullLit.add(lit);
+        }
+    }
+
+    private void send(Player player, World world, SectionBatch batch) {
+        player.sendMultiBlockChange(batch.blocks);
+        sectionBatches++;
+        blockChanges += batch.blocks.size();
+
+        // Heads need their profile sent after the block itself
+        for (int i = 0; i < batch.skulls.size(); i++) {
+            BlockTarget target = batch.skulls.get(i);
+            Skull skull = target.getClientSkull(batch.skullLit.get(i));
+            ElementPosition position = target.getPosition();
+            player.sendBlockUpdate(new Location(world, position.getX(), position.getY(), position.getZ()), skull);
+            skullUpdates++;
+        }
+    }
+
+    /**
+     * Packs a chunk section position into a long (22 bits x, 22 bits z, 20 bits y)
+     */
+    private static long sectionKey(int sectionX, int sectionY, int sectionZ) {
+        return ((long) sectionX & 0x3FFFFF) << 42 | ((long) sectionZ & 0x3FFFFF) << 20 | ((long) sectionY & 0xFFFFF);
+    }
+
+    /**
+     * Forgets all outputs and sent state (on animator stop)
+     * Blocks already neutralized stay neutral in the world
+     */
+    public void clear() {
+        pending.clear();
+        shown.clear();
+        targetsByChunk.clear();
+        neutralized.clear();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getSectionBatches() {
+        return sectionBatches;
+    }
+
+    public long getBlockChanges() {
+        return blockChanges;
+    }
+
+    public long getSkullUpdates() {
+        return skullUpdates;
+    }
+
+    public long getNeutralWrites() {
+        return neutralWrites;
+    }
+
+    public long getChunkSends() {
+        return chunkSends;
+    }
+}
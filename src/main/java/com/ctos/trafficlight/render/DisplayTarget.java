@@ -0,0 +1,56 @@
+package com.ctos.trafficlight.render;
+
+import com.ctos.trafficlight.model.DisplayElement;
+import com.ctos.trafficlight.model.DisplayStateData;
+import com.ctos.trafficlight.model.LightPhase;
+import org.bukkit.World;
+import org.bukkit.entity.Display;
+
+/**
+ * A display entity output: the display receives either a captured display state or is emptied
+ */
+public final class DisplayTarget extends RenderTarget {
+    private final DisplayElement display;
+    private final DisplayStateData litState;
+    private final DisplayStateData darkState; // null = dark appearance shows nothing
+
+    DisplayTarget(DisplayElement display, LightPhase phase, boolean pedestrian,
+                  DisplayStateData litState, DisplayStateData darkState) {
+        super(display.getPosition(), phase, pedestrian);
+        this.display = display;
+        this.litState = litState;
+        this.darkState = darkState;
+    }
+
+    @Override
+    protected void write(World world, boolean lit) {
+        Display entity = display.findDisplay(world);
+        if (entity == null) {
+            return; // Removed or not loaded yet; the chunk resync retries once its entities load
+        }
+
+        DisplayStateData state = lit ? litState : darkState;
+        if (state != null) {
+            state.applyToDisplay(entity, lit);
+        } else {
+            DisplayStateData.hide(entity);
+        }
+    }
+
+    /**
+     * Resolves both appearances up front so the first phase change does not pay for it
+     */
+    @Override
+    void warm() {
+        if (litState != null) {
+            litState.warm();
+        }
+        if (darkState != null) {
+            darkState.warm();
+        }
+    }
+
+    public DisplayElement getDisplay() {
+        return display;
+    }
+}
@@ -0,0 +1,70 @@
+package com.ctos.trafficlight.render;
+
+import com.ctos.trafficlight.model.ItemFrameElement;
+import com.ctos.trafficlight.model.ItemFrameStateData;
+import com.ctos.trafficlight.model.LightPhase;
+import org.bukkit.World;
+import org.bukkit.entity.ItemFrame;
+
+/**
+ * An item frame output: the frame is located (or respawned) through its element,
+ * then receives either a captured frame state or is emptied
+ */
+public final class FrameTarget extends RenderTarget {
+    private final ItemFrameElement frame;
+    private final ItemFrameStateData litState;
+    private final ItemFrameStateData darkState;
+    private final boolean darkClears; // true = dark appearance is an empty frame
+
+    FrameTarget(ItemFrameElement frame, LightPhase phase, boolean pedestrian,
+                ItemFrameStateData litState, ItemFrameStateData darkState, boolean darkClears) {
+        super(frame.getPosition(), phase, pedestrian);
+        this.frame = frame;
+        this.litState = litState;
+        this.darkState = darkState;
+        this.darkClears = darkClears;
+    }
+
+    @Override
+    protected void write(World world, boolean lit) {
+        ItemFrame itemFrame = frame.findOrSpawnItemFrame(world);
+        if (itemFrame == null) {
+            LOGGER.warning("Could not find or spawn item frame at " + frame.getPosition());
+            return;
+        }
+
+        ItemFrameStateData state = lit ? litState : darkState;
+        if (state != null) {
+            state.applyToItemFrame(itemFrame, false);
+        } else if (!lit && darkClears) {
+            // No item frame neutral state - set to empty
+            if (ItemFrameStateData.isShowing(itemFrame, null)) {
+                ItemFrameStateData.recordPropertyWrite(false);
+                return;
+            }
+            // Temporarily set fixed=true to prevent item drops
+            boolean wasFixed = itemFrame.isFixed();
+            itemFrame.setFixed(true);
+            itemFrame.setItem(null, false);
+            itemFrame.setFixed(wasFixed);
+            ItemFrameStateData.recordPropertyWrite(true);
+        }
+    }
+
+    /**
+     * Deserializes both appearances up front so the first phase change does not pay for it
+     */
+    @Override
+    void warm() {
+        if (litState != null) {
+            litState.getItem();
+        }
+        if (darkState != null) {
+            darkState.getItem();
+        }
+    }
+
+    public ItemFrameElement getFrame() {
+        return frame;
+    }
+}
@@ -0,0 +1,292 @@
+package com.ctos.trafficlight.render;
+
+import com.ctos.trafficlight.cycle.PhaseProgram;
+import com.ctos.trafficlight.model.*;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Immutable, precompiled description of how an intersection looks in every phase of its program.
+ *
+ * All sides, blocks and elements are flattened once into an array of targets with their
+ * lit/dark appearances resolved, and for each phase the plan knows which targets are lit
+ * and which targets can change when the cycle enters that phase from the previous one.
+ * Phase changes then only walk that delta list instead of rebuilding everything.
+ */
+public final class RenderPlan {
+    private static final Logger LOGGER = Logger.getLogger("ctOS");
+
+    private final Intersection intersection;
+    private final PhaseProgram program;
+    private final RenderTarget[] targets;
+    private final int phaseCount;
+    private final boolean[] lit; // [phase * targets.length + target]
+    private final int[][] transitions; // [phase] -> targets to check when entering phase from its predecessor
+    private final int[] allTargets;
+    private final int[] chunkWorlds; // Distinct chunks the targets live in (world id, key pairs)
+    private final long[] chunkKeys;
+
+    private RenderPlan(Intersection intersection, PhaseProgram program, RenderTarget[] targets, boolean[] lit) {
+        this.intersection = intersection;
+        this.program = program;
+        this.targets = targets;
+        this.phaseCount = program.getPhaseCount();
+        this.lit = lit;
+
+        this.allTargets = new int[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            allTargets[i] = i;
+        }
+
+        // Precompute what can change between consecutive phases
+        this.transitions = new int[phaseCount][];
+        int[] buffer = new int[targets.length];
+        for (int phase = 0; phase < phaseCount; phase++) {
+            int previous = (phase + phaseCount - 1) % phaseCount;
+            int count = 0;
+            for (int t = 0; t < targets.length; t++) {
+                if (isLit(previous, t) != isLit(phase, t)) {
+                    buffer[count++] = t;
+                }
+            }
+            transitions[phase] = Arrays.copyOf(buffer, count);
+        }
+
+        // Collect the chunks touched by this intersection
+        Map<Integer, Set<Long>> chunks = new LinkedHashMap<>();
+        for (RenderTarget target : targets) {
+            chunks.computeIfAbsent(target.getPosition().getWorldId(), world -> new LinkedHashSet<>())
+                    .add(target.getChunkKey());
+        }
+        int chunkCount = 0;
+        for (Set<Long> keys : chunks.values()) {
+            chunkCount += keys.size();
+        }
+        this.chunkWorlds = new int[chunkCount];
+        this.chunkKeys = new long[chunkCount];
+        int c = 0;
+        for (Map.Entry<Integer, Set<Long>> entry : chunks.entrySet()) {
+            for (long key : entry.getValue()) {
+                chunkWorlds[c] = entry.getKey();
+                chunkKeys[c] = key;
+                c++;
+            }
+        }
+    }
+
+    /**
+     * Compiles the render plan for an intersection
+     * @param debug Whether to log configuration oddities found while compiling
+     */
+    public static RenderPlan compile(Intersection intersection, boolean debug) {
+        PhaseProgram program = PhaseProgram.compile(intersection);
+        int phaseCount = program.getPhaseCount();
+        BlockStateData neutralState = intersection.getNeutralState();
+        TrafficLightElement neutralElement = intersection.getNeutralElement();
+        List<TrafficLightSide> sides = intersection.getSides();
+
+        // Keyed by position so an element listed twice renders once
+        Map<ElementPosition, RenderTarget> compiled = new LinkedHashMap<>();
+        Map<ElementPosition, boolean[]> litByPhase = new HashMap<>();
+
+        for (int i = 0; i < sides.size(); i++) {
+            TrafficLightSide side = sides.get(i);
+            String direction = side.getDirection();
+            String sideFacing = BlockStateData.facingForDirection(direction);
+
+            // The side's column of the program
+            LightPhase[] vehiclePhases = new LightPhase[phaseCount];
+            boolean[] pedestrianGreen = new boolean[phaseCount];
+            for (int p = 0; p < phaseCount; p++) {
+                vehiclePhases[p] = program.getVehicleLight(p, i);
+                pedestrianGreen[p] = program.isPedestrianGreen(p, i);
+            }
+
+            for (LightPhase lightPhase : LightPhase.values()) {
+                for (TrafficLightElement element : side.getLightElements(lightPhase)) {
+                    if (debug && element instanceof BlockElement block) {
+                        warnIfNeutral(block, neutralState);
+                    }
+                    RenderTarget target = elementTarget(element, lightPhase, false, sideFacing,
+                            neutralState, neutralElement);
+                    put(compiled, litByPhase, target, vehicleLit(vehiclePhases, lightPhase));
+                }
+            }
+
+            if (side.hasPedestrianElements()) {
+                for (TrafficLightElement element : side.getPedestrianGreenElements()) {
+                    RenderTarget target = elementTarget(element, LightPhase.GREEN, true, null,
+                            neutralState, neutralElement);
+                    put(compiled, litByPhase, target, pedestrianGreen.clone());
+                }
+                for (TrafficLightElement element : side.getPedestrianRedElements()) {
+                    RenderTarget target = elementTarget(element, LightPhase.RED, true, null,
+                            neutralState, neutralElement);
+                    put(compiled, litByPhase, target, invert(pedestrianGreen));
+                }
+            }
+        }
+
+        RenderTarget[] targets = compiled.values().toArray(new RenderTarget[0]);
+        boolean[] lit = new boolean[phaseCount * targets.length];
+        for (int t = 0; t < targets.length; t++) {
+            boolean[] byPhase = litByPhase.get(targets[t].getPosition());
+            for (int p = 0; p < phaseCount; p++) {
+                lit[p * targets.length + t] = byPhase[p];
+            }
+        }
+
+        // Resolve block data now rather than on the first phase change
+        for (RenderTarget target : targets) {
+            try {
+                target.warm();
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("Invalid block data at " + target.getPosition() + " of intersection "
+                        + intersection.getName() + ": " + e.getMessage());
+            }
+        }
+
+        if (debug) {
+            for (RenderTarget target : targets) {
+                if (target instanceof BlockTarget block && block.getDarkState() == null) {
+                    LOGGER.warning("Block at " + target.getPosition() + " of intersection " + intersection.getName()
+                            + " has no neutral block state and will not be switched off");
+                }
+            }
+        }
+
+        return new RenderPlan(intersection, program, targets, lit);
+    }
+
+    /**
+     * Builds the target for an element, resolving its dark appearance from the intersection's neutral
+     */
+    private static RenderTarget elementTarget(TrafficLightElement element, LightPhase phase, boolean pedestrian,
+                                              String sideFacing, BlockStateData neutralState,
+                                              TrafficLightElement neutralElement) {
+        if (element instanceof ItemFrameElement frame) {
+            if (neutralElement instanceof ItemFrameElement neutralFrame) {
+                return new FrameTarget(frame, phase, pedestrian, frame.getFrameState(), neutralFrame.getFrameState(), false);
+            }
+            // No item frame neutral state - the frame is emptied
+            return new FrameTarget(frame, phase, pedestrian, frame.getFrameState(), null, true);
+        }
+
+        if (element instanceof DisplayElement display) {
+            // Without a display neutral state the display is emptied
+            DisplayStateData darkState = neutralElement instanceof DisplayElement neutralDisplay
+                    ? neutralDisplay.getDisplayState() : null;
+            return new DisplayTarget(display, phase, pedestrian, display.getDisplayState(), darkState);
+        }
+
+        BlockElement block = (BlockElement) element;
+        BlockStateData state = block.getBlockStateData();
+        String ownFacing = state != null ? state.extractFacing() : null;
+
+        // Neutral copies the facing from the block it replaces
+        BlockStateData darkState = neutralState;
+        if (darkState == null && neutralElement instanceof BlockElement neutralBlock) {
+            darkState = neutralBlock.getBlockStateData();
+        }
+
+        // Vehicle lights rotate towards the side's drivers, pedestrian lights keep their captured orientation
+        String litFacing = pedestrian ? ownFacing : sideFacing;
+        return new BlockTarget(element.getPosition(), phase, pedestrian, state, litFacing, darkState, ownFacing);
+    }
+
+    private static void warnIfNeutral(BlockElement block, BlockStateData neutralState) {
+        BlockStateData state = block.getBlockStateData();
+        if (neutralState != null && state != null && state.getMaterial() == neutralState.getMaterial()
+                && state.getBlockDataString().equals(neutralState.getBlockDataString())) {
+            LOGGER.warning("Active block at " + block.getPosition() + " is identical to neutral state! No visual change.");
+        }
+    }
+
+    private static void put(Map<ElementPosition, RenderTarget> compiled, Map<ElementPosition, boolean[]> litByPhase,
+                            RenderTarget target, boolean[] lit) {
+        compiled.put(target.getPosition(), target);
+        litByPhase.put(target.getPosition(), lit);
+    }
+
+    private static boolean[] vehicleLit(LightPhase[] vehiclePhases, LightPhase lightPhase) {
+        boolean[] lit = new boolean[vehiclePhases.length];
+        for (int p = 0; p < vehiclePhases.length; p++) {
+            lit[p] = vehiclePhases[p] == lightPhase;
+        }
+        return lit;
+    }
+
+    private static boolean[] invert(boolean[] values) {
+        boolean[] inverted = new boolean[values.length];
+        for (int i = 0; i < values.length; i++) {
+            inverted[i] = !values[i];
+        }
+        return inverted;
+    }
+
+    /**
+     * Checks if a target shows its lit appearance in a phase
+     */
+    public boolean isLit(int phase, int target) {
+        return lit[phase * targets.length + target];
+    }
+
+    /**
+     * Gets the targets that may change when the cycle enters a phase from its predecessor
+     */
+    public int[] getTransition(int phase) {
+        return transitions[phase];
+    }
+
+    /**
+     * Gets the indices of every target, for full renders
+     */
+    public int[] getAllTargets() {
+        return allTargets;
+    }
+
+    public RenderTarget getTarget(int index) {
+        return targets[index];
+    }
+
+    public int getTargetCount() {
+        return targets.length;
+    }
+
+    /**
+     * Gets the number of distinct chunks the targets live in
+     */
+    public int getChunkCount() {
+        return chunkKeys.length;
+    }
+
+    /**
+     * Gets the world id (see WorldRegistry) of a chunk
+     */
+    public int getChunkWorld(int index) {
+        return chunkWorlds[index];
+    }
+
+    /**
+     * Gets a chunk key as produced by Chunk#getChunkKey
+     */
+    public long getChunkKey(int index) {
+        return chunkKeys[index];
+    }
+
+    public int getPhaseCount() {
+        return phaseCount;
+    }
+
+    /**
+     * Gets the phase program the plan was compiled for
+     */
+    public PhaseProgram getProgram() {
+        return program;
+    }
+
+    public Intersection getIntersection() {
+        return intersection;
+    }
+}
@@ -0,0 +1,269 @@
+package com.ctos.trafficlight.render;
+
+import com.ctos.trafficlight.model.ElementPosition;
+import com.ctos.util.WorldRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Budgeted apply stage between phase changes and the world
+ *
+ * Phase changes enqueue target writes instead of applying them, and each tick drains the queue
+ * up to a write count and time budget. A newer write for the same target supersedes the pending
+ * one (keeping its age). When more is pending than the budget allows, targets near players and
+ * targets that have waited longest go first. The time budget can shrink with the server's MSPT.
+ * Selected writes are grouped by chunk, so the world and chunk state are checked once per chunk
+ * rather than once per write; writes to chunks that are no longer loaded are dropped.
+ * Not thread-safe: use from the main thread only.
+ */
+public final class RenderQueue {
+    private static final double TICK_MILLIS = 50.0;
+    private static final double AGE_WEIGHT = 0.5; // Blocks of distance forgiven per tick waited
+    private static final double NO_PLAYER_DISTANCE = 100_000; // Worlds without players go last
+    private static final int MIN_WRITES_PER_TICK = 16; // Always make some progress
+    private static final double MIN_ADAPTIVE_MILLIS = 0.5; // Adaptive budget floor, so lag never lifts the limit
+
+    private final Map<RenderTarget, PendingWrite> pending;
+
+    private int maxWritesPerTick;
+    private double maxMillisPerTick;
+    private boolean adaptive;
+
+    private long enqueued;
+    private long superseded;
+    private long written;
+    private long dropped;
+    private int lastDrained;
+    private double lastBudgetMillis;
+
+    private static final class PendingWrite {
+        final RenderTarget target;
+        boolean lit;
+        final long enqueuedTick;
+        double priority;
+
+        PendingWrite(RenderTarget target, boolean lit, long enqueuedTick) {
+            this.target = target;
+            this.lit = lit;
+            this.enqueuedTick = enqueuedTick;
+        }
+    }
+
+    public RenderQueue(int maxWritesPerTick, double maxMillisPerTick, boolean adaptive) {
+        this.pending = new LinkedHashMap<>();
+        configure(maxWritesPerTick, maxMillisPerTick, adaptive);
+    }
+
+    /**
+     * Updates the budget
+     * @param maxWritesPerTick Maximum writes per tick (0 = no count limit)
+     * @param maxMillisPerTick Maximum milliseconds spent writing per tick (0 = no time limit)
+     * @param adaptive Whether the time budget shrinks as the server's MSPT approaches 50ms
+     */
+    public void configure(int maxWritesPerTick, double maxMillisPerTick, boolean adaptive) {
+        this.maxWritesPerTick = Math.max(0, maxWritesPerTick);
+        this.maxMillisPerTick = Math.max(0, maxMillisPerTick);
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Queues a write, superseding any pending write for the same target
+     */
+    public void enqueue(RenderTarget target, boolean lit, long currentTick) {
+        PendingWrite existing = pending.get(target);
+        if (existing != null) {
+            existing.lit = lit;
+            superseded++;
+            return;
+        }
+        pending.put(target, new PendingWrite(target, lit, currentTick));
+        enqueued++;
+    }
+
+    /**
+     * Drops pending writes for the targets of a plan (when its intersection is unregistered)
+     */
+    public void removeAll(RenderPlan plan) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < plan.getTargetCount(); i++) {
+            pending.remove(plan.getTarget(i));
+        }
+    }
+
+    /**
+     * Applies pending writes until the budget is spent
+     * @return Number of writes applied
+     */
+    public int drain(long currentTick) {
+        lastDrained = 0;
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        double budgetMillis = getTimeBudgetMillis();
+        lastBudgetMillis = budgetMillis;
+        // Only a configured budget of 0 means no time limit; the adaptive budget never reaches 0
+        long deadline = maxMillisPerTick > 0 ? System.nanoTime() + (long) (budgetMillis * 1_000_000) : Long.MAX_VALUE;
+        int limit = maxWritesPerTick > 0 ? maxWritesPerTick : Integer.MAX_VALUE;
+
+        Map<Integer, Map<Long, List<PendingWrite>>> groups;
+        if (pending.size() <= limit) {
+            // Everything fits the count budget: oldest first
+            groups = groupByChunk(pending.values(), limit);
+        } else {
+            // Over budget: closest to players and longest waiting first
+            groups = groupByChunk(Arrays.asList(prioritize(currentTick)), limit);
+        }
+
+        int count = 0;
+        for (Map.Entry<Integer, Map<Long, List<PendingWrite>>> worldGroups : groups.entrySet()) {
+            World world = WorldRegistry.get(worldGroups.getKey());
+            for (List<PendingWrite> group : worldGroups.getValue().values()) {
+                if (count >= MIN_WRITES_PER_TICK && System.nanoTime() >= deadline) {
+                    break;
+                }
+
+                // One loaded check for the whole chunk; writes made while it is unloaded would be lost anyway
+                RenderTarget first = group.get(0).target;
+                if (world == null || !world.isChunkLoaded(first.getChunkX(), first.getChunkZ())
+                        || !world.getChunkAt(first.getChunkX(), first.getChunkZ()).isEntitiesLoaded()) {
+                    for (PendingWrite write : group) {
+                        pending.remove(write.target);
+                    }
+                    dropped += group.size();
+                    continue;
+                }
+
+                for (PendingWrite write : group) {
+                    if (count >= MIN_WRITES_PER_TICK && System.nanoTime() >= deadline) {
+                        break;
+                    }
+                    pending.remove(write.target);
+                    write.target.applyLoaded(world, write.lit);
+                    count++;
+                }
+            }
+        }
+
+        written += count;
+        lastDrained = count;
+        return count;
+    }
+
+    /**
+     * Groups the first writes of an ordering by world and chunk, keeping the order of first appearance
+     */
+    private static Map<Integer, Map<Long, List<PendingWrite>>> groupByChunk(Iterable<PendingWrite> ordered, int limit) {
+        Map<Integer, Map<Long, List<PendingWrite>>> groups = new LinkedHashMap<>();
+        int selected = 0;
+        for (PendingWrite write : ordered) {
+            if (selected++ >= limit) {
+                break;
+            }
+            RenderTarget target = write.target;
+            groups.computeIfAbsent(target.getPosition().getWorldId(), world -> new LinkedHashMap<>())
+                    .computeIfAbsent(target.getChunkKey(), key -> new ArrayList<>())
+                    .add(write);
+        }
+        return groups;
+    }
+
+    /**
+     * Sorts pending writes by distance to the nearest player in the same world, minus an age bonus
+     */
+    private PendingWrite[] prioritize(long currentTick) {
+        Map<Integer, List<double[]>> players = new HashMap<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            Location location = player.getLocation();
+            int worldId = WorldRegistry.lookup(location.getWorld().getName());
+            if (worldId < 0) {
+                continue; // No traffic lights in this world
+            }
+            players.computeIfAbsent(worldId, world -> new ArrayList<>())
+                    .add(new double[]{location.getX(), location.getZ()});
+        }
+
+        PendingWrite[] ordered = pending.values().toArray(new PendingWrite[0]);
+        for (PendingWrite write : ordered) {
+            ElementPosition position = write.target.getPosition();
+            List<double[]> worldPlayers = players.get(position.getWorldId());
+            double distance = NO_PLAYER_DISTANCE;
+            if (worldPlayers != null) {
+                double best = Double.MAX_VALUE;
+                for (double[] player : worldPlayers) {
+                    double dx = player[0] - position.getX();
+                    double dz = player[1] - position.getZ();
+                    best = Math.min(best, dx * dx + dz * dz);
+                }
+                distance = Math.sqrt(best);
+            }
+            write.priority = distance - (currentTick - write.enqueuedTick) * AGE_WEIGHT;
+        }
+        Arrays.sort(ordered, (a, b) -> Double.compare(a.priority, b.priority));
+        return ordered;
+    }
+
+    /**
+     * Gets the time budget for this tick, shrunk by the measured MSPT when adaptive
+     * With 50ms of headroom the configured budget applies; as MSPT approaches 50ms the
+     * budget falls to a fraction of the remaining headroom, down to a small floor once the
+     * server is overloaded (MSPT at or above 50ms).
+     */
+    private double getTimeBudgetMillis() {
+        if (maxMillisPerTick <= 0 || !adaptive) {
+            return maxMillisPerTick;
+        }
+        double mspt = Bukkit.getAverageTickTime();
+        double headroom = Math.max(0, TICK_MILLIS - mspt);
+        return Math.min(maxMillisPerTick, Math.max(MIN_ADAPTIVE_MILLIS, headroom * 0.5));
+    }
+
+    /**
+     * Drops every pending write
+     */
+    public void clear() {
+        pending.clear();
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public long getEnqueued() {
+        return enqueued;
+    }
+
+    public long getSuperseded() {
+        return superseded;
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Gets the number of writes dropped because their chunk was unloaded when they came up
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    public int getLastDrained() {
+        return lastDrained;
+    }
+
+    public double getLastBudgetMillis() {
+        return lastBudgetMillis;
+    }
+}
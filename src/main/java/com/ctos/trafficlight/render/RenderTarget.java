@@ -0,0 +1,105 @@
+package com.ctos.trafficlight.render;
+
+import com.ctos.trafficlight.model.ElementPosition;
+import com.ctos.trafficlight.model.LightPhase;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One physical output of an intersection (a block or an item frame)
+ * with both of its appearances resolved ahead of time:
+ * "lit" when its light is on, "dark" when it shows the neutral state.
+ */
+public abstract class RenderTarget {
+    protected static final Logger LOGGER = Logger.getLogger("ctOS");
+
+    private final ElementPosition position;
+    private final LightPhase phase;
+    private final boolean pedestrian;
+    private final int chunkX;
+    private final int chunkZ;
+    private final long chunkKey;
+
+    RenderTarget(ElementPosition position, LightPhase phase, boolean pedestrian) {
+        this.position = position;
+        this.phase = phase;
+        this.pedestrian = pedestrian;
+        this.chunkX = position.getX() >> 4;
+        this.chunkZ = position.getZ() >> 4;
+        this.chunkKey = Chunk.getChunkKey(chunkX, chunkZ);
+    }
+
+    /**
+     * Writes the lit or dark appearance of this target to the world
+     * Does nothing if the world, the chunk or its entities are not loaded
+     */
+    public void apply(boolean lit) {
+        World world = position.getWorld();
+        if (world == null) {
+            return; // World not loaded
+        }
+
+        // Check if chunk is loaded with active entities
+        if (!world.isChunkLoaded(chunkX, chunkZ) || !world.getChunkAt(chunkX, chunkZ).isEntitiesLoaded()) {
+            return;
+        }
+
+        applyLoaded(world, lit);
+    }
+
+    /**
+     * Writes the lit or dark appearance of this target once the caller has checked that its
+     * chunk and entities are loaded (the render queue checks once per chunk)
+     */
+    void applyLoaded(World world, boolean lit) {
+        try {
+            write(world, lit);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to apply state at " + position, e);
+        }
+    }
+
+    /**
+     * Prepares any cached data the writes will need (called once at compile time)
+     */
+    void warm() {
+    }
+
+    /**
+     * Performs the actual world write once the position is known to be loaded
+     */
+    protected abstract void write(World world, boolean lit);
+
+    public ElementPosition getPosition() {
+        return position;
+    }
+
+    /**
+     * The light this target shows when lit (GREEN/RED for pedestrian outputs)
+     */
+    public LightPhase getPhase() {
+        return phase;
+    }
+
+    public boolean isPedestrian() {
+        return pedestrian;
+    }
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkZ() {
+        return chunkZ;
+    }
+
+    /**
+     * Gets the key of the chunk this target lives in (Chunk#getChunkKey)
+     */
+    public long getChunkKey() {
+        return chunkKey;
+    }
+}
@@ -0,0 +1,154 @@
+package com.ctos.trafficlight.service;
+
+import com.ctos.trafficlight.model.Intersection;
+import com.ctos.trafficlight.render.RenderPlan;
+import com.ctos.util.WorldRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks which chunks holding traffic lights are loaded
+ *
+ * Fed by chunk and entity load events, it tells the animator whether an intersection has any
+ * loaded chunk (intersections with none are skipped entirely) and collects the intersections
+ * touched by newly loaded chunks so they can be re-rendered in one batched pass. The intersections
+ * of a chunk come from the IntersectionManager's chunk index.
+ * Not thread-safe: use from the main thread only.
+ */
+public class ChunkActivityTracker {
+    private final Map<Integer, Set<Long>> loadedChunks; // world id -> loaded chunk keys
+    private final IntersectionManager intersectionManager;
+    private final Set<Intersection> pendingResync;
+    private final List<Intersection> drained; // Reused by every drain
+
+    public ChunkActivityTracker(IntersectionManager intersectionManager) {
+        this.loadedChunks = new HashMap<>();
+        this.intersectionManager = intersectionManager;
+        this.pendingResync = new LinkedHashSet<>();
+        this.drained = new ArrayList<>();
+    }
+
+    /**
+     * Records the chunks already loaded in every world (on animator start)
+     */
+    public void seedLoadedChunks() {
+        loadedChunks.clear();
+        for (World world : Bukkit.getWorlds()) {
+            int id = WorldRegistry.lookup(world.getName());
+            if (id >= 0) {
+                loadedChunks.put(id, collectLoadedChunks(world));
+            }
+        }
+    }
+
+    /**
+     * Gets the loaded chunks of a world, seeding them from the world the first time it is asked for
+     * A world gets its id when its first traffic light is created, possibly after seedLoadedChunks ran
+     */
+    private Set<Long> loadedChunksOf(int world) {
+        Set<Long> keys = loadedChunks.get(world);
+        if (keys == null) {
+            World handle = WorldRegistry.get(world);
+            keys = handle != null ? collectLoadedChunks(handle) : new HashSet<>();
+            loadedChunks.put(world, keys);
+        }
+        return keys;
+    }
+
+    private static Set<Long> collectLoadedChunks(World world) {
+        Set<Long> keys = new HashSet<>();
+        for (Chunk chunk : world.getLoadedChunks()) {
+            keys.add(chunk.getChunkKey());
+        }
+        return keys;
+    }
+
+    /**
+     * Drops an intersection waiting for a resync (on unregistration)
+     */
+    public void unregister(Intersection intersection) {
+        pendingResync.remove(intersection);
+    }
+
+    /**
+     * Checks if any chunk of a plan is loaded
+     */
+    public boolean isActive(RenderPlan plan) {
+        for (int i = 0; i < plan.getChunkCount(); i++) {
+            if (loadedChunksOf(plan.getChunkWorld(i)).contains(plan.getChunkKey(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks a chunk as loaded and queues its intersections for a resync
+     */
+    public void onChunkLoad(int world, long chunkKey) {
+        loadedChunksOf(world).add(chunkKey);
+        queueResync(world, chunkKey);
+    }
+
+    /**
+     * Marks a chunk as unloaded
+     */
+    public void onChunkUnload(int world, long chunkKey) {
+        Set<Long> keys = loadedChunks.get(world);
+        if (keys != null) {
+            keys.remove(chunkKey);
+        }
+    }
+
+    /**
+     * Queues the intersections of a chunk whose entities (item frames) just loaded
+     */
+    public void onEntitiesLoad(int world, long chunkKey) {
+        queueResync(world, chunkKey);
+    }
+
+    /**
+     * Forgets every chunk of an unloaded world
+     */
+    public void onWorldUnload(int world) {
+        loadedChunks.remove(world);
+    }
+
+    private void queueResync(int world, long chunkKey) {
+        pendingResync.addAll(intersectionManager.getIntersectionsInChunk(world, chunkKey));
+    }
+
+    /**
+     * Takes the intersections waiting for a resync
+     * The returned list is reused: it is only valid until the next call
+     */
+    public List<Intersection> drainResync() {
+        if (pendingResync.isEmpty()) {
+            return List.of();
+        }
+        drained.clear();
+        for (Intersection intersection : pendingResync) {
+            drained.add(intersection);
+        }
+        pendingResync.clear();
+        return drained;
+    }
+
+    /**
+     * Forgets all chunks and pending resyncs (on animator stop)
+     */
+    public void clear() {
+        loadedChunks.clear();
+        pendingResync.clear();
+        drained.clear();
+    }
+}
@@ -0,0 +1,126 @@
+package com.ctos.trafficlight.service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Applied state of every animated output, stored in one flat byte array
+ *
+ * Each registered intersection gets a contiguous range of element ids (one per render target, in
+ * plan order), so checking whether an output changed is an array read and unregistering frees the
+ * whole range at once. Freed ranges are coalesced and reused first-fit.
+ * Not thread-safe: use from the main thread only.
+ */
+public class ElementStateIndex {
+    public static final byte UNKNOWN = -1; // Nothing applied yet (or applied state lost)
+
+    private byte[] states;
+    private final TreeMap<Integer, Integer> freeRanges; // base -> length
+    private int end; // Ids at and above this are unused
+    private int allocated;
+
+    public ElementStateIndex() {
+        this.states = new byte[64];
+        this.freeRanges = new TreeMap<>();
+    }
+
+    /**
+     * Reserves a contiguous range of element ids, all in the UNKNOWN state
+     * @return The first id of the range
+     */
+    public int allocate(int count) {
+        allocated += count;
+        if (count == 0) {
+            return 0;
+        }
+
+        for (Map.Entry<Integer, Integer> range : freeRanges.entrySet()) {
+            if (range.getValue() >= count) {
+                int base = range.getKey();
+                freeRanges.remove(base);
+                if (range.getValue() > count) {
+                    freeRanges.put(base + count, range.getValue() - count);
+                }
+                return base; // Freed ranges were reset to UNKNOWN when released
+            }
+        }
+
+        int base = end;
+        end += count;
+        if (end > states.length) {
+            states = Arrays.copyOf(states, Math.max(end, states.length * 2));
+        }
+        // Ids past the old end may still hold states from before a clear
+        Arrays.fill(states, base, end, UNKNOWN);
+        return base;
+    }
+
+    /**
+     * Releases a range returned by allocate
+     */
+    public void free(int base, int count) {
+        allocated -= count;
+        if (count == 0) {
+            return;
+        }
+        Arrays.fill(states, base, base + count, UNKNOWN);
+
+        // Merge with the neighbouring free ranges
+        Map.Entry<Integer, Integer> before = freeRanges.floorEntry(base);
+        if (before != null && before.getKey() + before.getValue() == base) {
+            freeRanges.remove(before.getKey());
+            base = before.getKey();
+            count += before.getValue();
+        }
+        Integer afterLength = freeRanges.remove(base + count);
+        if (afterLength != null) {
+            count += afterLength;
+        }
+
+        if (base + count == end) {
+            end = base; // Trailing ranges shrink the used part instead
+        } else {
+            freeRanges.put(base, count);
+        }
+    }
+
+    /**
+     * Forgets the applied state of a range (its outputs will be rewritten)
+     */
+    public void reset(int base, int count) {
+        Arrays.fill(states, base, base + count, UNKNOWN);
+    }
+
+    public byte get(int id) {
+        return states[id];
+    }
+
+    public void set(int id, byte state) {
+        states[id] = state;
+    }
+
+    /**
+     * Gets the number of element ids in use
+     */
+    public int size() {
+        return allocated;
+    }
+
+    /**
+     * Gets the number of element ids the array can hold without growing
+     */
+    public int capacity() {
+        return states.length;
+    }
+
+    /**
+     * Releases every range (on animator stop)
+     * Stale states are left in place: allocate resets the ids it hands out
+     */
+    public void clear() {
+        freeRanges.clear();
+        end = 0;
+        allocated = 0;
+    }
+}
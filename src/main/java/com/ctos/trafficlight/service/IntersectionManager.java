@@ -1,24 +1,63 @@
 package com.ctos.trafficlight.service;
 
 import com.ctos.trafficlight.model.BlockPosition;
+import com.ctos.trafficlight.model.ElementPosition;
 import com.ctos.trafficlight.model.Intersection;
+import com.ctos.util.LongIntOpenHashMap;
+import com.ctos.util.PositionKeys;
+import org.bukkit.Chunk;
 
 import java.util.*;
 import java.util.logging.Logger;
 
 /**
  * Central registry and management of all intersections
- * Provides fast lookups by ID or block position
+ * Provides fast lookups by ID or position
+ * Position lookups go through one primitive map per world, from packed positions (of blocks, item
+ * frames and displays alike) to dense intersection slots. Each intersection keeps the sorted keys
+ * it put in each world's map, so re-indexing it only diffs those lists and never scans the maps.
+ * A spatial index keyed by world and chunk covers every element (blocks, item frames and displays)
+ * and answers chunk, radius and nearest-intersection queries by visiting only the chunks involved.
+ * The list of all intersections is an immutable snapshot, rebuilt only after a registration
+ * change, so readers (including the asynchronous auto-save) iterate it without copying.
  */
 public class IntersectionManager {
     private static final Logger LOGGER = Logger.getLogger("ctOS");
+    private static final long[] NO_KEYS = new long[0];
 
     private final Map<UUID, Intersection> intersections;
-    private final Map<BlockPosition, UUID> blockToIntersection;
+    private final Map<Integer, LongIntOpenHashMap> positionsByWorld; // world id -> packed element position -> slot
+    private final List<Intersection> slots; // Dense slot -> intersection (null = free)
+    private final Map<UUID, Integer> slotById;
+    private final Map<UUID, Map<Integer, long[]>> indexedPositions; // world id -> sorted, distinct keys of each intersection's elements
+    private final Deque<Integer> freeSlots;
+    private final Map<Integer, Map<Long, List<Intersection>>> intersectionsByChunk; // world id -> chunk key -> intersections
+    private final Map<UUID, IndexedChunks> indexedChunks; // Chunks each intersection was put in
+    private volatile List<Intersection> snapshot; // Immutable list of all intersections (null = stale)
+    private boolean debugChecks; // Verify each intersection's index entries after re-indexing it
 
     public IntersectionManager() {
         this.intersections = new HashMap<>();
-        this.blockToIntersection = new HashMap<>();
+        this.positionsByWorld = new HashMap<>();
+        this.slots = new ArrayList<>();
+        this.slotById = new HashMap<>();
+        this.indexedPositions = new HashMap<>();
+        this.freeSlots = new ArrayDeque<>();
+        this.intersectionsByChunk = new HashMap<>();
+        this.indexedChunks = new HashMap<>();
+    }
+
+    /**
+     * Chunks an intersection was added to in the spatial index, as (world id, chunk key) pairs
+     */
+    private static final class IndexedChunks {
+        final int[] worlds;
+        final long[] keys;
+
+        IndexedChunks(int[] worlds, long[] keys) {
+            this.worlds = worlds;
+            this.keys = keys;
+        }
     }
 
     /**
@@ -29,7 +68,10 @@ public class IntersectionManager {
             throw new IllegalArgumentException("Intersection cannot be null");
         }
 
-        intersections.put(intersection.getId(), intersection);
+        synchronized (intersections) {
+            intersections.put(intersection.getId(), intersection);
+            snapshot = null;
+        }
         updateBlockIndex(intersection);
 
         LOGGER.info("Registered intersection: " + intersection.getName() + " (" + intersection.getId() + ")");
@@ -39,12 +81,20 @@ public class IntersectionManager {
      * Removes an intersection by ID
      */
     public void removeIntersection(UUID id) {
-        Intersection intersection = intersections.remove(id);
+        Intersection intersection;
+        synchronized (intersections) {
+            intersection = intersections.remove(id);
+            snapshot = null;
+        }
 
         if (intersection != null) {
-            // Remove block mappings
-            for (BlockPosition pos : intersection.getAllBlocks()) {
-                blockToIntersection.remove(pos);
+            // Remove position and chunk mappings
+            unindexPositions(id);
+            unindexChunks(id);
+            Integer slot = slotById.remove(id);
+            if (slot != null) {
+                slots.set(slot, null);
+                freeSlots.push(slot);
             }
 
             LOGGER.info("Removed intersection: " + intersection.getName() + " (" + id + ")");
@@ -62,18 +112,42 @@ public class IntersectionManager {
      * Gets an intersection by a block position it contains
      */
     public Optional<Intersection> getIntersectionByBlock(BlockPosition position) {
-        UUID id = blockToIntersection.get(position);
-        if (id == null) {
+        return getIntersectionByKey(position.getWorldId(), position.getKey());
+    }
+
+    /**
+     * Gets an intersection by the position of one of its elements (the facing of item frames is ignored)
+     */
+    public Optional<Intersection> getIntersectionAt(ElementPosition position) {
+        return getIntersectionByKey(position.getWorldId(), position.getKey());
+    }
+
+    private Optional<Intersection> getIntersectionByKey(int worldId, long key) {
+        LongIntOpenHashMap positions = positionsByWorld.get(worldId);
+        int slot = positions != null ? positions.get(key, -1) : -1;
+        if (slot < 0) {
             return Optional.empty();
         }
-        return getIntersection(id);
+        return Optional.ofNullable(slots.get(slot));
     }
 
     /**
      * Gets all registered intersections
+     * @return An immutable snapshot, unaffected by later registrations and removals
      */
     public Collection<Intersection> getAllIntersections() {
-        return new ArrayList<>(intersections.values());
+        List<Intersection> current = snapshot;
+        if (current == null) {
+            // Registrations happen on the main thread, the auto-save may ask from its own
+            synchronized (intersections) {
+                current = snapshot;
+                if (current == null) {
+                    current = List.copyOf(intersections.values());
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
     }
 
     /**
@@ -94,29 +168,450 @@ public class IntersectionManager {
      * Checks if a block position is part of any intersection
      */
     public boolean isBlockManaged(BlockPosition position) {
-        return blockToIntersection.containsKey(position);
+        LongIntOpenHashMap positions = positionsByWorld.get(position.getWorldId());
+        return positions != null && positions.containsKey(position.getKey());
     }
 
     /**
-     * Updates the block position index for an intersection
-     * This should be called whenever an intersection's blocks change
+     * Updates the position and chunk indexes for an intersection
+     * This should be called whenever an intersection's blocks or elements change
+     * Only the keys that appeared or disappeared since the last call are touched.
      */
     public void updateBlockIndex(Intersection intersection) {
-        // Remove old mappings for this intersection
-        blockToIntersection.entrySet().removeIf(entry -> entry.getValue().equals(intersection.getId()));
+        UUID id = intersection.getId();
+        int slot = slotOf(intersection);
+        Map<Integer, long[]> previous = indexedPositions.getOrDefault(id, Map.of());
+        Map<Integer, long[]> current = sortedKeys(intersection);
+
+        for (Map.Entry<Integer, long[]> entry : current.entrySet()) {
+            diff(entry.getKey(), previous.getOrDefault(entry.getKey(), NO_KEYS), entry.getValue(), slot, id);
+        }
+        for (Map.Entry<Integer, long[]> entry : previous.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                diff(entry.getKey(), entry.getValue(), NO_KEYS, slot, id);
+            }
+        }
+        indexedPositions.put(id, current);
+
+        updateChunkIndex(intersection);
+
+        if (debugChecks) {
+            for (String problem : verify(id)) {
+                LOGGER.warning("Position index check failed after re-indexing " + intersection.getName() + ": " + problem);
+            }
+        }
+    }
+
+    /**
+     * Applies the change between two sorted key lists of one world to that world's map
+     */
+    private void diff(int worldId, long[] previous, long[] current, int slot, UUID id) {
+        LongIntOpenHashMap positions = positionsByWorld.computeIfAbsent(worldId, world -> new LongIntOpenHashMap());
+
+        // Both lists are sorted: one merge pass finds the removed and added keys
+        int i = 0;
+        int j = 0;
+        while (i < previous.length || j < current.length) {
+            if (j == current.length || (i < previous.length && previous[i] < current[j])) {
+                release(worldId, previous[i++], slot, id);
+            } else if (i == previous.length || previous[i] > current[j]) {
+                positions.put(current[j++], slot); // Last registered wins on shared positions
+            } else {
+                if (!positions.containsKey(current[j])) {
+                    positions.put(current[j], slot);
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Gets the sorted, distinct position keys of an intersection's elements, per world id
+     */
+    private static Map<Integer, long[]> sortedKeys(Intersection intersection) {
+        Set<ElementPosition> positions = intersection.getAllElementPositions();
+        Map<Integer, long[]> byWorld = new HashMap<>(2);
+        Map<Integer, Integer> counts = new HashMap<>(2);
+        for (ElementPosition position : positions) {
+            int world = position.getWorldId();
+            long[] keys = byWorld.computeIfAbsent(world, w -> new long[positions.size()]);
+            int count = counts.getOrDefault(world, 0);
+            keys[count] = position.getKey();
+            counts.put(world, count + 1);
+        }
+
+        for (Map.Entry<Integer, long[]> entry : byWorld.entrySet()) {
+            long[] keys = entry.getValue();
+            int count = counts.get(entry.getKey());
+            Arrays.sort(keys, 0, count);
+
+            // Item frames on different faces of one block share a key
+            int distinct = 0;
+            for (int k = 0; k < count; k++) {
+                if (distinct == 0 || keys[k] != keys[distinct - 1]) {
+                    keys[distinct++] = keys[k];
+                }
+            }
+            entry.setValue(distinct == keys.length ? keys : Arrays.copyOf(keys, distinct));
+        }
+        return byWorld;
+    }
+
+    /**
+     * Removes every position mapping an intersection added
+     */
+    private void unindexPositions(UUID id) {
+        Map<Integer, long[]> indexed = indexedPositions.remove(id);
+        Integer slot = slotById.get(id);
+        if (indexed == null || slot == null) {
+            return;
+        }
+        for (Map.Entry<Integer, long[]> entry : indexed.entrySet()) {
+            for (long key : entry.getValue()) {
+                release(entry.getKey(), key, slot, id);
+            }
+        }
+    }
+
+    /**
+     * Drops an intersection's claim on a position key
+     * If it owned the key and another intersection in the same chunk also lists it, the key passes
+     * to that intersection instead of being removed
+     */
+    private void release(int worldId, long key, int slot, UUID id) {
+        LongIntOpenHashMap positions = positionsByWorld.get(worldId);
+        if (positions == null || positions.get(key, -1) != slot) {
+            return; // Another intersection took it over
+        }
+
+        Map<Long, List<Intersection>> worldChunks = intersectionsByChunk.get(worldId);
+        List<Intersection> neighbours = worldChunks != null
+                ? worldChunks.get(Chunk.getChunkKey(PositionKeys.x(key) >> 4, PositionKeys.z(key) >> 4))
+                : null;
+        if (neighbours != null) {
+            for (Intersection neighbour : neighbours) {
+                if (neighbour.getId().equals(id)) {
+                    continue;
+                }
+                Integer neighbourSlot = slotById.get(neighbour.getId());
+                if (neighbourSlot != null && lists(neighbour.getId(), worldId, key)) {
+                    positions.put(key, neighbourSlot);
+                    return;
+                }
+            }
+        }
+        positions.remove(key);
+    }
+
+    /**
+     * Checks if an intersection put a key in a world's map
+     */
+    private boolean lists(UUID id, int worldId, long key) {
+        Map<Integer, long[]> indexed = indexedPositions.get(id);
+        long[] keys = indexed != null ? indexed.get(worldId) : null;
+        return keys != null && Arrays.binarySearch(keys, key) >= 0;
+    }
+
+    /**
+     * Checks the position index entries of one intersection
+     * Every key it lists must map to a live intersection that lists the key too
+     * @return The problems found (empty if consistent)
+     */
+    private List<String> verify(UUID id) {
+        List<String> problems = new ArrayList<>();
+        Map<Integer, long[]> indexed = indexedPositions.get(id);
+        if (indexed == null) {
+            return problems;
+        }
+        for (Map.Entry<Integer, long[]> entry : indexed.entrySet()) {
+            int worldId = entry.getKey();
+            LongIntOpenHashMap positions = positionsByWorld.get(worldId);
+            for (long key : entry.getValue()) {
+                int owner = positions != null ? positions.get(key, -1) : -1;
+                Intersection intersection = owner >= 0 && owner < slots.size() ? slots.get(owner) : null;
+                if (intersection == null) {
+                    problems.add("position " + describe(worldId, key) + " of " + id + " is not indexed");
+                    continue;
+                }
+                if (!lists(intersection.getId(), worldId, key)) {
+                    problems.add("position " + describe(worldId, key) + " of " + id + " maps to " + intersection.getName()
+                            + ", which does not contain it");
+                }
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Checks the whole position index against the per-intersection key lists and slots
+     * Used by the debug statistics; costs one pass over every indexed position
+     * @return The problems found (empty if consistent)
+     */
+    public List<String> verifyIndex() {
+        List<String> problems = new ArrayList<>();
+        Map<Integer, LongIntOpenHashMap> listed = new HashMap<>();
+        for (Map.Entry<UUID, Map<Integer, long[]>> entry : indexedPositions.entrySet()) {
+            Integer slot = slotById.get(entry.getKey());
+            if (slot == null || slots.get(slot) == null || !slots.get(slot).getId().equals(entry.getKey())) {
+                problems.add("intersection " + entry.getKey() + " has indexed positions but no slot");
+            }
+            for (Map.Entry<Integer, long[]> world : entry.getValue().entrySet()) {
+                LongIntOpenHashMap keys = listed.computeIfAbsent(world.getKey(), w -> new LongIntOpenHashMap());
+                for (long key : world.getValue()) {
+                    keys.put(key, 0);
+                }
+            }
+            problems.addAll(verify(entry.getKey()));
+        }
+        // Every listed key is indexed (checked above), so equal sizes mean no stale entries remain
+        for (Map.Entry<Integer, LongIntOpenHashMap> entry : positionsByWorld.entrySet()) {
+            LongIntOpenHashMap keys = listed.get(entry.getKey());
+            int stale = entry.getValue().size() - (keys != null ? keys.size() : 0);
+            if (stale != 0) {
+                problems.add(stale + " indexed positions in world " + entry.getKey() + " belong to no intersection");
+            }
+        }
+        return problems;
+    }
+
+    private static String describe(int worldId, long key) {
+        return PositionKeys.x(key) + "," + PositionKeys.y(key) + "," + PositionKeys.z(key) + " (world " + worldId + ")";
+    }
 
-        // Add new mappings
-        for (BlockPosition pos : intersection.getAllBlocks()) {
-            blockToIntersection.put(pos, intersection.getId());
+    /**
+     * Enables the per-intersection index check run after every re-index (debug mode)
+     */
+    public void setDebugChecks(boolean debugChecks) {
+        this.debugChecks = debugChecks;
+    }
+
+    /**
+     * Gets the number of distinct positions in the position index
+     */
+    public int getIndexedPositionCount() {
+        int count = 0;
+        for (LongIntOpenHashMap positions : positionsByWorld.values()) {
+            count += positions.size();
         }
+        return count;
+    }
+
+    /**
+     * Puts an intersection in the chunk of each of its elements
+     */
+    private void updateChunkIndex(Intersection intersection) {
+        unindexChunks(intersection.getId());
+
+        Map<Integer, Set<Long>> chunks = new LinkedHashMap<>();
+        for (ElementPosition position : intersection.getAllElementPositions()) {
+            chunks.computeIfAbsent(position.getWorldId(), world -> new LinkedHashSet<>())
+                    .add(Chunk.getChunkKey(position.getX() >> 4, position.getZ() >> 4));
+        }
+
+        int count = 0;
+        for (Set<Long> keys : chunks.values()) {
+            count += keys.size();
+        }
+        int[] worlds = new int[count];
+        long[] keys = new long[count];
+        int c = 0;
+        for (Map.Entry<Integer, Set<Long>> entry : chunks.entrySet()) {
+            Map<Long, List<Intersection>> worldChunks = intersectionsByChunk.computeIfAbsent(entry.getKey(), world -> new HashMap<>());
+            for (long key : entry.getValue()) {
+                worldChunks.computeIfAbsent(key, k -> new ArrayList<>(1)).add(intersection);
+                worlds[c] = entry.getKey();
+                keys[c] = key;
+                c++;
+            }
+        }
+        indexedChunks.put(intersection.getId(), new IndexedChunks(worlds, keys));
+    }
+
+    /**
+     * Removes an intersection from the chunks it was put in
+     * Matched by id, as the instance may have been replaced under the same id
+     */
+    private void unindexChunks(UUID id) {
+        IndexedChunks indexed = indexedChunks.remove(id);
+        if (indexed == null) {
+            return;
+        }
+        for (int i = 0; i < indexed.keys.length; i++) {
+            Map<Long, List<Intersection>> worldChunks = intersectionsByChunk.get(indexed.worlds[i]);
+            if (worldChunks == null) {
+                continue;
+            }
+            List<Intersection> intersections = worldChunks.get(indexed.keys[i]);
+            if (intersections == null) {
+                continue;
+            }
+            intersections.removeIf(intersection -> intersection.getId().equals(id));
+            if (intersections.isEmpty()) {
+                worldChunks.remove(indexed.keys[i]);
+            }
+        }
+    }
+
+    /**
+     * Gets the intersections with at least one element in a chunk
+     * @param chunkKey The chunk key as produced by Chunk#getChunkKey
+     * @return A read-only list, empty if the chunk holds no element
+     */
+    public List<Intersection> getIntersectionsInChunk(int worldId, long chunkKey) {
+        Map<Long, List<Intersection>> worldChunks = intersectionsByChunk.get(worldId);
+        if (worldChunks == null) {
+            return List.of();
+        }
+        List<Intersection> intersections = worldChunks.get(chunkKey);
+        return intersections != null ? Collections.unmodifiableList(intersections) : List.of();
+    }
+
+    /**
+     * Gets the intersections with at least one element within a radius of a point
+     * Only the chunks the radius overlaps are visited
+     */
+    public List<Intersection> getIntersectionsWithin(int worldId, double x, double y, double z, double radius) {
+        Map<Long, List<Intersection>> worldChunks = intersectionsByChunk.get(worldId);
+        if (worldChunks == null || radius < 0) {
+            return List.of();
+        }
+
+        double radiusSquared = radius * radius;
+        Set<Intersection> seen = new HashSet<>();
+        List<Intersection> results = new ArrayList<>();
+        int minChunkX = (int) Math.floor(x - radius) >> 4;
+        int maxChunkX = (int) Math.floor(x + radius) >> 4;
+        int minChunkZ = (int) Math.floor(z - radius) >> 4;
+        int maxChunkZ = (int) Math.floor(z + radius) >> 4;
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                List<Intersection> intersections = worldChunks.get(Chunk.getChunkKey(chunkX, chunkZ));
+                if (intersections == null) {
+                    continue;
+                }
+                for (Intersection intersection : intersections) {
+                    if (seen.add(intersection) && distanceSquared(intersection, worldId, x, y, z) <= radiusSquared) {
+                        results.add(intersection);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Finds the intersection with the element closest to a point
+     * Chunks are visited in rings around the point's chunk, stopping as soon as no ring further
+     * out can hold a closer element
+     * @return The intersection, or null if none has an element closer than maxDistance
+     */
+    public Intersection findNearest(int worldId, double x, double y, double z, double maxDistance) {
+        Map<Long, List<Intersection>> worldChunks = intersectionsByChunk.get(worldId);
+        if (worldChunks == null) {
+            return null;
+        }
+
+        int centerX = (int) Math.floor(x) >> 4;
+        int centerZ = (int) Math.floor(z) >> 4;
+        int maxRing = (int) Math.ceil(maxDistance / 16) + 1;
+        Intersection nearest = null;
+        double nearestSquared = maxDistance * maxDistance;
+        Set<Intersection> seen = new HashSet<>();
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Every block of a chunk in this ring is at least this far from the point horizontally
+            double ringDistance = Math.max(0, ring - 1) * 16.0;
+            if (ringDistance * ringDistance >= nearestSquared) {
+                break;
+            }
+            for (int dx = -ring; dx <= ring; dx++) {
+                // Only the ring's border: inner chunks were visited by earlier rings
+                int step = Math.abs(dx) == ring ? 1 : 2 * ring;
+                for (int dz = -ring; dz <= ring; dz += step) {
+                    List<Intersection> intersections = worldChunks.get(Chunk.getChunkKey(centerX + dx, centerZ + dz));
+                    if (intersections == null) {
+                        continue;
+                    }
+                    for (Intersection intersection : intersections) {
+                        if (!seen.add(intersection)) {
+                            continue;
+                        }
+                        double distanceSquared = distanceSquared(intersection, worldId, x, y, z);
+                        if (distanceSquared < nearestSquared) {
+                            nearestSquared = distanceSquared;
+                            nearest = intersection;
+                        }
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Gets the squared distance from a point to the closest element of an intersection in a world
+     */
+    private static double distanceSquared(Intersection intersection, int worldId, double x, double y, double z) {
+        double best = Double.MAX_VALUE;
+        for (ElementPosition position : intersection.getAllElementPositions()) {
+            if (position.getWorldId() != worldId) {
+                continue;
+            }
+            double dx = position.getX() - x;
+            double dy = position.getY() - y;
+            double dz = position.getZ() - z;
+            best = Math.min(best, dx * dx + dy * dy + dz * dz);
+        }
+        return best;
+    }
+
+    /**
+     * Gets the number of chunks holding at least one element
+     */
+    public int getIndexedChunkCount() {
+        int count = 0;
+        for (Map<Long, List<Intersection>> worldChunks : intersectionsByChunk.values()) {
+            count += worldChunks.size();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the dense slot of an intersection, assigning a free one on first use
+     */
+    private int slotOf(Intersection intersection) {
+        Integer slot = slotById.get(intersection.getId());
+        if (slot != null) {
+            slots.set(slot, intersection); // The instance may have been replaced under the same id
+            return slot;
+        }
+        if (freeSlots.isEmpty()) {
+            slot = slots.size();
+            slots.add(intersection);
+        } else {
+            slot = freeSlots.pop();
+            slots.set(slot, intersection);
+        }
+        slotById.put(intersection.getId(), slot);
+        return slot;
     }
 
     /**
      * Clears all intersections from memory
      */
     public void clear() {
-        intersections.clear();
-        blockToIntersection.clear();
+        synchronized (intersections) {
+            intersections.clear();
+            snapshot = null;
+        }
+        positionsByWorld.clear();
+        slots.clear();
+        slotById.clear();
+        indexedPositions.clear();
+        freeSlots.clear();
+        intersectionsByChunk.clear();
+        indexedChunks.clear();
         LOGGER.info("Cleared all intersections from memory");
     }
 
@@ -16,6 +16,8 @@ import java.util.logging.Logger;
 
 /**
  * Handles saving and loading intersections to/from JSON files
+ * Files written before light elements existed are still read: their legacy block lists are
+ * converted into block elements on load, and only the element form is written back.
  */
 public class IntersectionPersistence {
     private static final Logger LOGGER = Logger.getLogger("ctOS");
@@ -37,6 +39,7 @@ public class IntersectionPersistence {
                 .registerTypeAdapter(ElementPosition.class, new ElementPositionAdapter())
                 .registerTypeAdapter(TrafficLightElement.class, new TrafficLightElementAdapter())
                 .registerTypeAdapter(ItemFrameStateData.class, new ItemFrameStateDataAdapter())
+                .registerTypeAdapter(DisplayStateData.class, new DisplayStateDataAdapter())
                 .registerTypeAdapter(BlockFace.class, new BlockFaceAdapter())
                 .registerTypeAdapter(Rotation.class, new RotationAdapter());
 
@@ -82,6 +85,11 @@ public class IntersectionPersistence {
 
         try (Reader reader = new FileReader(file)) {
             Intersection intersection = gson.fromJson(reader, Intersection.class);
+            int migrated = intersection.migrateLegacyBlocks();
+            if (migrated > 0) {
+                LOGGER.log(Level.INFO, "Converted " + migrated + " legacy blocks of intersection " + intersection.getName()
+                        + " into block elements (saved in the new form on the next save)");
+            }
             LOGGER.log(Level.INFO, "Loaded intersection: " + intersection.getName() + " (" + id + ")");
             return intersection;
         }
@@ -278,6 +286,12 @@ public class IntersectionPersistence {
             } else if (src instanceof ItemFrameElement) {
                 ItemFrameElement frame = (ItemFrameElement) src;
                 obj.add("frameState", context.serialize(frame.getFrameState(), ItemFrameStateData.class));
+            } else if (src instanceof DisplayElement) {
+                DisplayElement display = (DisplayElement) src;
+                obj.add("displayState", context.serialize(display.getDisplayState(), DisplayStateData.class));
+                if (display.getEntityId() != null) {
+                    obj.add("entity", context.serialize(display.getEntityId(), UUID.class));
+                }
             }
 
             return obj;
@@ -295,6 +309,10 @@ public class IntersectionPersistence {
             } else if ("item_frame".equals(type)) {
                 ItemFrameStateData frameState = context.deserialize(obj.get("frameState"), ItemFrameStateData.class);
                 return new ItemFrameElement(position, frameState);
+            } else if ("display".equals(type)) {
+                DisplayStateData displayState = context.deserialize(obj.get("displayState"), DisplayStateData.class);
+                UUID entityId = obj.has("entity") ? context.deserialize(obj.get("entity"), UUID.class) : null;
+                return new DisplayElement(position, displayState, entityId);
             }
 
             throw new JsonParseException("Unknown TrafficLightElement type: " + type);
@@ -353,6 +371,51 @@ public class IntersectionPersistence {
         }
     }
 
+    /**
+     * Type adapter for DisplayStateData
+     */
+    private static class DisplayStateDataAdapter implements JsonSerializer<DisplayStateData>, JsonDeserializer<DisplayStateData> {
+        @Override
+        public JsonElement serialize(DisplayStateData src, Type typeOfSrc, JsonSerializationContext context) {
+            JsonObject obj = new JsonObject();
+
+            if (src.getSerializedItem() != null) {
+                obj.add("item", context.serialize(src.getSerializedItem()));
+            }
+            if (src.getBlockDataString() != null) {
+                obj.addProperty("block", src.getBlockDataString());
+            }
+            if (src.getBrightness() != null) {
+                obj.addProperty("brightness", src.getBrightness());
+            }
+            obj.addProperty("x", src.getExactX());
+            obj.addProperty("y", src.getExactY());
+            obj.addProperty("z", src.getExactZ());
+
+            return obj;
+        }
+
+        @Override
+        public DisplayStateData deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+            JsonObject obj = json.getAsJsonObject();
+
+            Map<String, Object> serializedItem = null;
+            if (obj.has("item") && !obj.get("item").isJsonNull()) {
+                Type mapType = new TypeToken<Map<String, Object>>(){}.getType();
+                serializedItem = context.deserialize(obj.get("item"), mapType);
+            }
+            String block = obj.has("block") && !obj.get("block").isJsonNull() ? obj.get("block").getAsString() : null;
+            Integer brightness = obj.has("brightness") && !obj.get("brightness").isJsonNull()
+                    ? obj.get("brightness").getAsInt() : null;
+
+            double x = obj.has("x") ? obj.get("x").getAsDouble() : 0;
+            double y = obj.has("y") ? obj.get("y").getAsDouble() : 0;
+            double z = obj.has("z") ? obj.get("z").getAsDouble() : 0;
+
+            return new DisplayStateData(serializedItem, block, brightness, x, y, z);
+        }
+    }
+
     /**
      * Type adapter for BlockFace enum
      */
@@ -0,0 +1,157 @@
+package com.ctos.trafficlight.service;
+
+import com.ctos.trafficlight.model.Intersection;
+import com.ctos.trafficlight.render.RenderPlan;
+import com.ctos.util.LongByteOpenHashMap;
+import com.ctos.util.WorldRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classifies intersections into level-of-detail tiers by distance to the nearest player
+ *
+ * Each classification pass stamps the chunks around every online player into a chunk-keyed
+ * index holding the best tier reaching that chunk; an intersection then takes the best tier of
+ * the chunks its outputs live in. Distances are measured in chunks (square radius). Each player
+ * stamps FAR up to their own view distance, so anything a player can see is never HIDDEN.
+ * Not thread-safe: use from the main thread only.
+ */
+public class ProximityCuller {
+
+    /**
+     * Level of detail an intersection is animated with
+     */
+    public enum Tier {
+        NEAR,   // Rendered on every phase change
+        FAR,    // Rendered at most once per classification pass
+        HIDDEN  // Logical state only, caught up when a player comes into range
+    }
+
+    private static final Tier[] TIERS = Tier.values();
+    private static final byte NO_TIER = (byte) Tier.HIDDEN.ordinal();
+
+    private final Map<Integer, LongByteOpenHashMap> playerIndex; // world id -> chunk key -> best tier ordinal
+    private final Map<Intersection, Tier> tiers;
+
+    private boolean enabled;
+    private int nearChunks;
+    private int viewLimitChunks; // Cap on the players' view distances (Integer.MAX_VALUE = none)
+
+    public ProximityCuller() {
+        this.playerIndex = new HashMap<>();
+        this.tiers = new HashMap<>();
+    }
+
+    /**
+     * Updates the tier distances
+     * @param enabled false renders every intersection at full precision
+     * @param nearDistance Blocks within which intersections are NEAR
+     * @param viewDistance Blocks within which intersections are FAR (HIDDEN beyond), at most each
+     *                     player's view distance; 0 or less follows the players' view distances
+     */
+    public void configure(boolean enabled, int nearDistance, int viewDistance) {
+        this.enabled = enabled;
+        this.nearChunks = Math.max(0, (nearDistance + 15) >> 4);
+        this.viewLimitChunks = viewDistance > 0 ? Math.max(nearChunks, (viewDistance + 15) >> 4) : Integer.MAX_VALUE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Rebuilds the chunk-keyed player index from the online players
+     */
+    public void rebuildIndex() {
+        // Tables are kept between passes so stamping does not allocate once they have grown
+        for (LongByteOpenHashMap chunks : playerIndex.values()) {
+            chunks.clear();
+        }
+        if (!enabled) {
+            return;
+        }
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            Location location = player.getLocation();
+            int worldId = WorldRegistry.lookup(location.getWorld().getName());
+            if (worldId < 0) {
+                continue; // No traffic lights in this world
+            }
+            LongByteOpenHashMap chunks = playerIndex.computeIfAbsent(worldId, world -> new LongByteOpenHashMap());
+            int viewChunks = Math.min(viewLimitChunks, player.getViewDistance());
+            int near = Math.min(nearChunks, viewChunks);
+            int centerX = location.getBlockX() >> 4;
+            int centerZ = location.getBlockZ() >> 4;
+            for (int dx = -viewChunks; dx <= viewChunks; dx++) {
+                for (int dz = -viewChunks; dz <= viewChunks; dz++) {
+                    Tier tier = Math.max(Math.abs(dx), Math.abs(dz)) <= near ? Tier.NEAR : Tier.FAR;
+                    long key = Chunk.getChunkKey(centerX + dx, centerZ + dz);
+                    if (tier.ordinal() < chunks.get(key, NO_TIER)) {
+                        chunks.put(key, (byte) tier.ordinal());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Classifies an intersection against the current player index
+     * @return The new tier
+     */
+    public Tier classify(Intersection intersection, RenderPlan plan) {
+        Tier best = Tier.HIDDEN;
+        if (!enabled) {
+            best = Tier.NEAR;
+        } else {
+            for (int i = 0; i < plan.getChunkCount() && best != Tier.NEAR; i++) {
+                LongByteOpenHashMap chunks = playerIndex.get(plan.getChunkWorld(i));
+                if (chunks == null) {
+                    continue;
+                }
+                byte tier = chunks.get(plan.getChunkKey(i), NO_TIER);
+                if (tier < best.ordinal()) {
+                    best = TIERS[tier];
+                }
+            }
+        }
+        tiers.put(intersection, best);
+        return best;
+    }
+
+    /**
+     * Gets the tier of an intersection from the last classification (NEAR when culling is disabled)
+     */
+    public Tier getTier(Intersection intersection) {
+        if (!enabled) {
+            return Tier.NEAR;
+        }
+        return tiers.getOrDefault(intersection, Tier.NEAR);
+    }
+
+    /**
+     * Counts the intersections in a tier
+     */
+    public int count(Tier tier) {
+        int count = 0;
+        for (Tier value : tiers.values()) {
+            if (value == tier) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void remove(Intersection intersection) {
+        tiers.remove(intersection);
+    }
+
+    public void clear() {
+        playerIndex.clear();
+        tiers.clear();
+    }
+}
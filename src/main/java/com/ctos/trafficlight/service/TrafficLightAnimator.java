@@ -1,22 +1,27 @@
 package com.ctos.trafficlight.service;
 
 import com.ctos.CtOSPlugin;
-import com.ctos.trafficlight.cycle.CyclePhase;
+import com.ctos.trafficlight.cycle.CoordinationGroup;
+import com.ctos.trafficlight.cycle.OffsetAllocator;
+import com.ctos.trafficlight.cycle.PhaseClock;
+import com.ctos.trafficlight.cycle.PhaseProgram;
+import com.ctos.trafficlight.cycle.TimingWheel;
 import com.ctos.trafficlight.cycle.TrafficCycle;
-import com.ctos.trafficlight.model.*;
+import com.ctos.trafficlight.model.Intersection;
+import com.ctos.trafficlight.render.ClientRenderer;
+import com.ctos.trafficlight.render.RenderPlan;
+import com.ctos.trafficlight.render.RenderQueue;
+import com.ctos.trafficlight.render.RenderTarget;
 import org.bukkit.Bukkit;
-import org.bukkit.Chunk;
-import org.bukkit.Location;
-import org.bukkit.World;
-import org.bukkit.block.Block;
-import org.bukkit.entity.ItemFrame;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -25,22 +30,61 @@ import java.util.logging.Logger;
  */
 public class TrafficLightAnimator {
     private static final Logger LOGGER = Logger.getLogger("ctOS");
+    private static final int WHEEL_SLOTS = 512; // Covers phases up to ~25 seconds in one revolution
+    private static final int CLASSIFY_INTERVAL_TICKS = 20; // Proximity classification once per second
+    private static final byte STATE_NEUTRAL = 0; // Applied-state codes: lit outputs store LightPhase ordinal + 1
 
     private final CtOSPlugin plugin;
     private final IntersectionManager intersectionManager;
-    private final Map<Intersection, TrafficCycle> cycles;
-    private final Map<BlockPosition, LightPhase> currentBlockStates;
-    private final Map<ElementPosition, LightPhase> currentElementStates; // For element-based tracking
+    private final Map<Intersection, TrafficCycle> cycles; // Intersections running their own cycle
+    private final Map<String, CoordinationGroup> groups; // Shared clocks by group name
+    private final Map<Intersection, CoordinationGroup> memberships; // Intersections driven by a group
+    private final Map<Intersection, RenderPlan> plans;
+    private final Map<Intersection, Integer> renderedPhases; // Last phase (program index) drawn for each intersection
+    private final ElementStateIndex appliedStates; // Applied state per output, by element id
+    private final Map<Intersection, Integer> elementBases; // First element id of each plan's range
+    private TimingWheel<PhaseClock> scheduler; // Next phase change of every cycle and group
+    private final TimingWheel.DueHandler<PhaseClock> dueHandler = this::onClockDue; // Bound once, not on every tick
+    private TrafficCycle.Mode cycleMode;
+    private final OffsetAllocator offsetAllocator;
+    private final WriteVolumeTracker writeVolume;
+    private int maxChangesPerTick; // 0 = unlimited
+    private final RenderQueue renderQueue; // Budgeted world writes
+    private final ClientRenderer clientRenderer; // Per-viewer block changes in client-side mode
+    private final ChunkActivityTracker chunkActivity;
+    private final ProximityCuller culler;
+    private int ticksSinceClassification;
+    private long culledChanges;
+    private long coalescedChanges;
+    private long catchUpRenders;
+    private long skippedChanges;
+    private long resyncs;
+    private long groupEvaluations;
+    private long vehicleWrites;
+    private long pedestrianWrites;
+    private long pedestrianUnchanged; // Pedestrian outputs checked but already showing the right state
     private BukkitTask animationTask;
-    private int tickInterval;
+    private long phaseChanges;
 
     public TrafficLightAnimator(CtOSPlugin plugin, IntersectionManager intersectionManager) {
         this.plugin = plugin;
         this.intersectionManager = intersectionManager;
         this.cycles = new HashMap<>();
-        this.currentBlockStates = new HashMap<>();
-        this.currentElementStates = new HashMap<>();
-        this.tickInterval = plugin.getConfig().getInt("animation.tick-interval", 10);
+        this.groups = new HashMap<>();
+        this.memberships = new HashMap<>();
+        this.plans = new HashMap<>();
+        this.renderedPhases = new HashMap<>();
+        this.appliedStates = new ElementStateIndex();
+        this.elementBases = new HashMap<>();
+        this.cycleMode = readCycleMode();
+        this.offsetAllocator = new OffsetAllocator();
+        this.writeVolume = new WriteVolumeTracker();
+        this.renderQueue = new RenderQueue(0, 0, false);
+        this.clientRenderer = new ClientRenderer();
+        this.chunkActivity = new ChunkActivityTracker(intersectionManager);
+        this.culler = new ProximityCuller();
+        configureCuller();
+        configureRenderQueue();
     }
 
     /**
@@ -52,22 +96,38 @@ public class TrafficLightAnimator {
             return;
         }
 
+        cycleMode = readCycleMode();
+        maxChangesPerTick = Math.max(0, plugin.getConfig().getInt("animation.max-changes-per-tick", 8));
+        clientRenderer.setEnabled(readClientSideMode());
+        long now = getCurrentTick();
+        scheduler = new TimingWheel<>(WHEEL_SLOTS, now);
+        chunkActivity.seedLoadedChunks();
+        culler.rebuildIndex();
+        ticksSinceClassification = 0;
+
         // Initialize cycles for all intersections
         for (Intersection intersection : intersectionManager.getAllIntersections()) {
             if (intersection.isComplete()) {
-                cycles.put(intersection, new TrafficCycle(intersection));
+                RenderPlan plan = plans.computeIfAbsent(intersection, i -> RenderPlan.compile(i, plugin.isDebugEnabled()));
+                clientRenderer.register(plan);
+                elementBases.put(intersection, appliedStates.allocate(plan.getTargetCount()));
+                culler.classify(intersection, plan);
+                startCycle(intersection, now);
             }
         }
 
-        // Start the repeating task
+        // Run every tick: the wheel only touches cycles whose phase change is due
         animationTask = new BukkitRunnable() {
             @Override
             public void run() {
                 tick();
             }
-        }.runTaskTimer(plugin, 0L, tickInterval);
+        }.runTaskTimer(plugin, 1L, 1L);
 
-        LOGGER.info("Traffic light animator started (tick interval: " + tickInterval + " ticks)");
+        LOGGER.info("Traffic light animator started (" + cycles.size() + " cycles, " + groups.size() + " coordination groups, "
+                + cycleMode.name().toLowerCase() + " mode, " + (clientRenderer.isEnabled() ? "client-side" : "world")
+                + " rendering, at most "
+                + offsetAllocator.getPeakReservedChanges() + " scheduled phase changes per tick)");
     }
 
     /**
@@ -79,9 +139,25 @@ public class TrafficLightAnimator {
             animationTask = null;
         }
 
+        if (scheduler != null) {
+            scheduler.clear();
+            scheduler = null;
+        }
         cycles.clear();
-        currentBlockStates.clear();
-        currentElementStates.clear();
+        groups.clear();
+        memberships.clear();
+        offsetAllocator.clear();
+        renderQueue.clear();
+        if (clientRenderer.isEnabled()) {
+            clientRenderer.restoreViewers();
+        }
+        clientRenderer.clear();
+        chunkActivity.clear();
+        culler.clear();
+        plans.clear();
+        renderedPhases.clear();
+        elementBases.clear();
+        appliedStates.clear();
 
         LOGGER.info("Traffic light animator stopped");
     }
@@ -91,452 +167,747 @@ public class TrafficLightAnimator {
      */
     public void registerIntersection(Intersection intersection) {
         if (intersection.isComplete()) {
-            cycles.put(intersection, new TrafficCycle(intersection));
-            LOGGER.info("Registered intersection for animation: " + intersection.getName());
+            RenderPlan plan = installPlan(intersection);
+            if (scheduler != null) {
+                startCycle(intersection, getCurrentTick());
+            }
+            LOGGER.info("Registered intersection for animation: " + intersection.getName()
+                    + " (" + plan.getTargetCount() + " outputs, " + plan.getPhaseCount() + " phases)");
         }
     }
 
+    /**
+     * Compiles an intersection's render plan and, while running, swaps it in for the previous one
+     */
+    private RenderPlan installPlan(Intersection intersection) {
+        RenderPlan plan = RenderPlan.compile(intersection, plugin.isDebugEnabled());
+        RenderPlan previous = plans.put(intersection, plan);
+        renderedPhases.remove(intersection);
+        if (scheduler != null) {
+            if (previous != null) {
+                renderQueue.removeAll(previous);
+                clientRenderer.unregister(previous);
+                releaseElements(intersection, previous);
+            }
+            clientRenderer.register(plan);
+            elementBases.put(intersection, appliedStates.allocate(plan.getTargetCount()));
+            culler.classify(intersection, plan);
+        }
+        return plan;
+    }
+
     /**
      * Unregisters an intersection from animation
      */
     public void unregisterIntersection(Intersection intersection) {
-        cycles.remove(intersection);
+        detachClock(intersection);
+        offsetAllocator.release(intersection);
+        culler.remove(intersection);
+        renderedPhases.remove(intersection);
+        chunkActivity.unregister(intersection);
+
+        // Clear pending writes and applied states for the outputs this intersection was compiled with
+        RenderPlan plan = plans.remove(intersection);
+        if (plan != null) {
+            renderQueue.removeAll(plan);
+            clientRenderer.unregister(plan);
+            releaseElements(intersection, plan);
+        }
+
+        LOGGER.info("Unregistered intersection from animation: " + intersection.getName());
+    }
 
-        // Clear block states for this intersection
-        for (BlockPosition pos : intersection.getAllBlocks()) {
-            currentBlockStates.remove(pos);
+    /**
+     * Creates the cycle of an intersection, or adds it to its coordination group, and schedules
+     * its first render on the next tick
+     * A cycle that replaces an older one leaves the old wheel entry stale; it is dropped when it fires
+     */
+    private void startCycle(Intersection intersection, long now) {
+        detachClock(intersection);
+        PhaseProgram program = plans.get(intersection).getProgram();
+        if (offsetAllocator.reserve(intersection, program)) {
+            debug("Assigned cycle offset " + intersection.getCycleOffsetTicks() + " ticks to " + intersection.getName());
         }
 
-        // Clear element states for this intersection
-        for (ElementPosition pos : intersection.getAllElementPositions()) {
-            currentElementStates.remove(pos);
+        String groupName = intersection.getCoordinationGroup();
+        if (groupName != null) {
+            CoordinationGroup group = groups.computeIfAbsent(groupName, name -> new CoordinationGroup(name, program));
+            if (group.getProgram().isCompatibleWith(program)) {
+                group.addMember(intersection);
+                memberships.put(intersection, group);
+                scheduleGroup(group, now);
+                return;
+            }
+            LOGGER.warning("Intersection " + intersection.getName() + " runs a different phase program than group "
+                    + groupName + "; it keeps its own cycle until its program matches the group's");
+            if (group.isEmpty()) {
+                groups.remove(groupName);
+            }
         }
 
-        LOGGER.info("Unregistered intersection from animation: " + intersection.getName());
+        TrafficCycle cycle = new TrafficCycle(intersection, program, cycleMode, now);
+        cycles.put(intersection, cycle);
+        scheduler.schedule(cycle, now);
     }
 
     /**
-     * Main tick method - called every tickInterval ticks
+     * Stops driving an intersection from its cycle or group (groups left empty are dropped)
      */
-    private void tick() {
-        for (Map.Entry<Intersection, TrafficCycle> entry : cycles.entrySet()) {
-            Intersection intersection = entry.getKey();
-            TrafficCycle cycle = entry.getValue();
+    private void detachClock(Intersection intersection) {
+        cycles.remove(intersection);
+        CoordinationGroup group = memberships.remove(intersection);
+        if (group != null) {
+            group.removeMember(intersection);
+            if (group.isEmpty()) {
+                groups.remove(group.getName());
+            }
+        }
+    }
 
-            // Tick the cycle (returns true if phase changed)
-            boolean phaseChanged = cycle.tick();
+    /**
+     * Makes a group's next evaluation the live wheel entry (none while paused)
+     */
+    private void scheduleGroup(CoordinationGroup group, long dueTick) {
+        group.markScheduled(dueTick);
+        if (dueTick != Long.MAX_VALUE) {
+            scheduler.schedule(group, dueTick);
+        }
+    }
 
-            if (phaseChanged) {
-                updateIntersection(intersection, cycle);
-            }
+    /**
+     * Main tick method - called every server tick
+     */
+    private void tick() {
+        long now = getCurrentTick();
+        writeVolume.beginTick();
+        scheduler.advanceTo(now, dueHandler);
+        resyncLoadedIntersections(now);
+        if (++ticksSinceClassification >= CLASSIFY_INTERVAL_TICKS) {
+            ticksSinceClassification = 0;
+            classifyIntersections(now);
         }
+        writeVolume.recordWrites(renderQueue.drain(now));
+        clientRenderer.flush(now);
+        writeVolume.endTick();
     }
 
     /**
-     * Logs a debug message if debug mode is enabled
+     * Handles a cycle or group whose scheduled phase change tick has been reached
      */
-    private void debug(String message) {
-        if (plugin.isDebugEnabled()) {
-            LOGGER.info("[DEBUG] " + message);
+    private void onClockDue(PhaseClock clock, long dueTick) {
+        if (clock instanceof TrafficCycle cycle) {
+            onPhaseChangeDue(cycle);
+        } else if (clock instanceof CoordinationGroup group) {
+            onGroupDue(group, dueTick);
         }
     }
 
     /**
-     * Updates all blocks for an intersection based on the current cycle phase
+     * Handles a cycle whose scheduled phase change tick has been reached
      */
-    private void updateIntersection(Intersection intersection, TrafficCycle cycle) {
-        CyclePhase currentPhase = cycle.getCurrentPhase();
-        BlockStateData neutralState = intersection.getNeutralState();
-        TrafficLightElement neutralElement = intersection.getNeutralElement();
-        List<TrafficLightSide> sides = intersection.getSides();
+    private void onPhaseChangeDue(TrafficCycle cycle) {
+        // Unregistered or replaced since it was scheduled
+        if (cycles.get(cycle.getIntersection()) != cycle) {
+            return;
+        }
 
-        debug("=== Updating Intersection: " + intersection.getName() + " ===");
-        debug("Current Phase: " + currentPhase);
-        debug("Number of sides: " + sides.size());
+        // The phase is re-evaluated rather than assumed, as the change may have been deferred
+        long now = scheduler.getCurrentTick();
+        cycle.tick(now);
+        if (!showPhase(cycle.getIntersection(), cycle.getCurrentPhase(now), now)) {
+            scheduler.schedule(cycle, now + 1);
+            return;
+        }
+        scheduler.schedule(cycle, cycle.getNextChangeTick(now));
+    }
 
-        if (neutralState == null && neutralElement == null) {
-            LOGGER.severe("ERROR: No neutral state defined for intersection " + intersection.getName());
+    /**
+     * Handles a group whose scheduled phase change tick has been reached
+     * The shared clock is read once per member offset and the phase fanned out to the members
+     */
+    private void onGroupDue(CoordinationGroup group, long dueTick) {
+        // Dropped, or rescheduled (retimed, paused, new member) since this entry was made
+        if (groups.get(group.getName()) != group || !group.isScheduledFor(dueTick)) {
+            return;
         }
 
-        // Update each side
-        for (int i = 0; i < sides.size(); i++) {
-            TrafficLightSide side = sides.get(i);
+        long now = scheduler.getCurrentTick();
+        boolean deferred = false;
+        for (Map.Entry<Integer, List<Intersection>> entry : group.getMembersByOffset().entrySet()) {
+            int phase = group.getPhase(entry.getKey(), now);
+            groupEvaluations++;
+            for (Intersection member : entry.getValue()) {
+                if (!showPhase(member, phase, now)) {
+                    deferred = true; // Members already drawn are skipped when the group comes back
+                    break;
+                }
+            }
+            if (deferred) {
+                break;
+            }
+        }
+        scheduleGroup(group, deferred ? now + 1 : group.getNextChangeTick(now));
+    }
 
-            // Determine phase based on actual direction, not index
-            LightPhase lightPhase;
-            boolean pedestrianGreen;
+    /**
+     * Draws the phase an intersection should show, unless it is already drawn, unloaded or culled
+     * @return false if the per-tick cap was reached and the change must be retried on the next tick
+     */
+    private boolean showPhase(Intersection intersection, int phase, long now) {
+        if (isRendered(intersection, phase)) {
+            return true;
+        }
 
-            TrafficLightSide.DirectionGroup group = side.getDirectionGroup();
-            debug("Side " + i + " (" + side.getDirection() + ") has DirectionGroup: " + group);
+        // Nothing of it is loaded: only the logical phase moves on, the next render is a full one
+        RenderPlan plan = plans.get(intersection);
+        if (plan != null && !chunkActivity.isActive(plan)) {
+            renderedPhases.remove(intersection);
+            skippedChanges++;
+            return true;
+        }
 
-            if (group == TrafficLightSide.DirectionGroup.NORTH_SOUTH) {
-                lightPhase = currentPhase.getNsPhase();
-                pedestrianGreen = currentPhase.isNsPedestrianGreen();
-                debug("  -> Using NS phase: " + lightPhase);
-            } else if (group == TrafficLightSide.DirectionGroup.EAST_WEST) {
-                lightPhase = currentPhase.getEwPhase();
-                pedestrianGreen = currentPhase.isEwPedestrianGreen();
-                debug("  -> Using EW phase: " + lightPhase);
+        // Nobody can see it, or it is far enough to be caught up by the next classification pass
+        ProximityCuller.Tier tier = culler.getTier(intersection);
+        if (tier != ProximityCuller.Tier.NEAR) {
+            if (tier == ProximityCuller.Tier.HIDDEN) {
+                culledChanges++;
             } else {
-                // Fallback to index-based for unknown directions
-                lightPhase = currentPhase.getPhaseForSide(i, sides.size());
-                pedestrianGreen = currentPhase.isPedestrianGreen(i, sides.size());
-                LOGGER.warning("  -> Unknown direction, falling back to index-based: " + lightPhase);
+                coalescedChanges++;
             }
+            return true;
+        }
 
-            // Update element-based lights (if present)
-            if (side.hasElements()) {
-                debug("  - RED elements: " + side.getLightElements(LightPhase.RED).size());
-                debug("  - ORANGE elements: " + side.getLightElements(LightPhase.ORANGE).size());
-                debug("  - GREEN elements: " + side.getLightElements(LightPhase.GREEN).size());
+        // Past the per-tick cap the change waits for the next tick
+        if (maxChangesPerTick > 0 && writeVolume.getTickChanges() >= maxChangesPerTick) {
+            writeVolume.recordDeferred();
+            return false;
+        }
+        phaseChanges++;
+        writeVolume.recordChange();
+        updateIntersection(intersection, phase, now);
+        return true;
+    }
 
-                updateSideElements(side, lightPhase, neutralElement, neutralState);
+    /**
+     * Re-renders, in one pass, the intersections whose chunks or entities loaded since the last tick
+     * Their outputs may show anything (writes made while unloaded were lost), so every target is rewritten
+     */
+    private void resyncLoadedIntersections(long now) {
+        for (Intersection intersection : chunkActivity.drainResync()) {
+            RenderPlan plan = plans.get(intersection);
+            int phase = phaseOf(intersection, now);
+            if (plan == null || phase < 0) {
+                continue;
+            }
 
-                if (side.hasPedestrianElements()) {
-                    updatePedestrianElements(side, pedestrianGreen, neutralElement, neutralState);
-                }
+            Integer base = elementBases.get(intersection);
+            if (base != null) {
+                appliedStates.reset(base, plan.getTargetCount());
             }
+            renderedPhases.remove(intersection);
 
-            // Update legacy block-based lights
-            debug("  - RED blocks: " + side.getLightBlocks(LightPhase.RED).size());
-            debug("  - ORANGE blocks: " + side.getLightBlocks(LightPhase.ORANGE).size());
-            debug("  - GREEN blocks: " + side.getLightBlocks(LightPhase.GREEN).size());
+            // Hidden intersections are drawn by the classification pass once a player comes into range
+            if (culler.getTier(intersection) != ProximityCuller.Tier.HIDDEN) {
+                updateIntersection(intersection, phase, now);
+                resyncs++;
+            }
+        }
+    }
 
-            updateSideLights(side, lightPhase, neutralState);
+    /**
+     * Re-classifies every intersection by player proximity, then catches up the visible ones
+     * whose drawn phase fell behind (FAR intersections, or HIDDEN ones a player came close to)
+     * with a single render of their current phase
+     */
+    private void classifyIntersections(long now) {
+        culler.rebuildIndex();
+        for (Map.Entry<Intersection, RenderPlan> entry : plans.entrySet()) {
+            Intersection intersection = entry.getKey();
+            RenderPlan plan = entry.getValue();
+            if (culler.classify(intersection, plan) == ProximityCuller.Tier.HIDDEN) {
+                continue;
+            }
 
-            if (side.hasPedestrianLights()) {
-                updatePedestrianLights(side, pedestrianGreen, neutralState);
+            int phase = phaseOf(intersection, now);
+            if (phase < 0 || !chunkActivity.isActive(plan)) {
+                continue;
+            }
+            if (!isRendered(intersection, phase)) {
+                updateIntersection(intersection, phase, now);
+                catchUpRenders++;
             }
         }
     }
 
     /**
-     * Updates the lights for one side of an intersection
+     * Logs a debug message if debug mode is enabled
      */
-    private void updateSideLights(TrafficLightSide side, LightPhase activePhase, BlockStateData neutralState) {
-        debug("Updating side " + side.getDirection() + " to phase " + activePhase);
-        int blocksUpdated = 0;
-
-        // For each possible phase, update blocks
-        for (LightPhase phase : LightPhase.values()) {
-            List<BlockPosition> blocks = side.getLightBlocks(phase);
+    private void debug(String message) {
+        if (plugin.isDebugEnabled()) {
+            LOGGER.info("[DEBUG] " + message);
+        }
+    }
 
-            for (BlockPosition blockPos : blocks) {
-                // Determine what to display
-                BlockStateData targetState;
-                if (phase == activePhase) {
-                    // This phase is active, show the configured block
-                    targetState = side.getBlockState(blockPos);
+    /**
+     * Updates all outputs for an intersection based on the current cycle phase
+     * Walks the plan's precomputed delta list when the previous phase was rendered,
+     * or every target otherwise (first render, forced phase jumps)
+     * Writes go through the render queue, which applies them within the per-tick budget,
+     * except block outputs in client-side mode, which are sent to their viewers instead
+     */
+    private void updateIntersection(Intersection intersection, int phase, long now) {
+        RenderPlan plan = plans.get(intersection);
+        Integer elementBase = elementBases.get(intersection);
+        if (plan == null || elementBase == null) {
+            return;
+        }
 
-                    // Check if target state is same as neutral (no visual change will occur)
-                    if (plugin.isDebugEnabled() && neutralState != null && targetState != null &&
-                        targetState.getMaterial() == neutralState.getMaterial() &&
-                        targetState.getBlockDataString().equals(neutralState.getBlockDataString())) {
-                        LOGGER.warning("  WARNING: Active block at " + blockPos + " is identical to neutral state! No visual change.");
-                    }
+        int base = elementBase;
+        Integer previousPhase = renderedPhases.put(intersection, phase);
+        int[] candidates = previousPhase != null && plan.getProgram().next(previousPhase) == phase
+                ? plan.getTransition(phase)
+                : plan.getAllTargets();
+
+        int queued = 0;
+        for (int index : candidates) {
+            RenderTarget target = plan.getTarget(index);
+            boolean lit = plan.isLit(phase, index);
+
+            // Only update if the state has changed (optimization)
+            // UNKNOWN means "not initialized", which differs from every applied state
+            byte newState = lit ? (byte) (target.getPhase().ordinal() + 1) : STATE_NEUTRAL;
+            if (appliedStates.get(base + index) != newState) {
+                enqueue(target, lit, now);
+                appliedStates.set(base + index, newState);
+                queued++;
+                if (target.isPedestrian()) {
+                    pedestrianWrites++;
                 } else {
-                    // This phase is inactive, show neutral state
-                    targetState = neutralState;
-                }
-
-                // Only update if the block state has changed (optimization)
-                // Use containsKey to distinguish "not initialized" from "set to neutral (null)"
-                LightPhase currentState = currentBlockStates.get(blockPos);
-                LightPhase newState = (phase == activePhase) ? phase : null; // null = neutral state
-                boolean isFirstUpdate = !currentBlockStates.containsKey(blockPos);
-
-                if (isFirstUpdate || currentState != newState) {
-                    debug("  Setting block at " + blockPos + " to " +
-                               (targetState != null ? targetState.getMaterial() : "null") +
-                               " (phase: " + phase + ", active: " + (phase == activePhase) +
-                               ", first: " + isFirstUpdate + ", changing from: " + currentState + " to: " + newState + ")");
-                    applyBlockState(blockPos, targetState, side.getDirection());
-                    currentBlockStates.put(blockPos, newState);
-                    blocksUpdated++;
+                    vehicleWrites++;
                 }
+            } else if (target.isPedestrian()) {
+                pedestrianUnchanged++;
             }
         }
 
-        debug("  Total blocks updated for " + side.getDirection() + ": " + blocksUpdated);
+        // Guarded here rather than in debug(), so the message is not built on every phase change
+        if (plugin.isDebugEnabled()) {
+            debug("Intersection " + intersection.getName() + " -> " + plan.getProgram().getName(phase) + ": checked "
+                    + candidates.length + "/" + plan.getTargetCount() + " targets, queued " + queued);
+        }
     }
 
     /**
-     * Updates pedestrian lights for a side
-     * Note: Pedestrian lights preserve their original captured orientation
-     * Neutral blocks copy the facing from the block they replace
+     * Frees the element ids a plan was given
      */
-    private void updatePedestrianLights(TrafficLightSide side, boolean isGreen, BlockStateData neutralState) {
-        List<BlockPosition> pedestrianGreenBlocks = side.getPedestrianGreenBlocks();
-        List<BlockPosition> pedestrianRedBlocks = side.getPedestrianRedBlocks();
-
-        if (isGreen) {
-            // Show pedestrian green blocks (keep original orientation)
-            for (BlockPosition blockPos : pedestrianGreenBlocks) {
-                BlockStateData greenState = side.getBlockState(blockPos);
-                applyBlockState(blockPos, greenState, null);
-            }
+    private void releaseElements(Intersection intersection, RenderPlan plan) {
+        Integer base = elementBases.remove(intersection);
+        if (base != null) {
+            appliedStates.free(base, plan.getTargetCount());
+        }
+    }
 
-            // Show neutral state on red blocks (copy facing from the red block)
-            for (BlockPosition blockPos : pedestrianRedBlocks) {
-                BlockStateData redState = side.getBlockState(blockPos);
-                applyBlockStateWithFacing(blockPos, neutralState, redState);
-            }
+    /**
+     * Hands a target write to the backend rendering it
+     */
+    private void enqueue(RenderTarget target, boolean lit, long now) {
+        if (clientRenderer.handles(target)) {
+            clientRenderer.enqueue(target, lit, now);
         } else {
-            // Show neutral state on green blocks (copy facing from the green block)
-            for (BlockPosition blockPos : pedestrianGreenBlocks) {
-                BlockStateData greenState = side.getBlockState(blockPos);
-                applyBlockStateWithFacing(blockPos, neutralState, greenState);
-            }
+            renderQueue.enqueue(target, lit, now);
+        }
+    }
 
-            // Show pedestrian red blocks (keep original orientation)
-            for (BlockPosition blockPos : pedestrianRedBlocks) {
-                BlockStateData redState = side.getBlockState(blockPos);
-                applyBlockState(blockPos, redState, null);
-            }
+    /**
+     * Gets the phase an intersection shows at a tick, from its own cycle or its group's clock
+     * @return The phase index in the intersection's program, or -1 if the intersection is not animated
+     */
+    private int phaseOf(Intersection intersection, long now) {
+        TrafficCycle cycle = cycles.get(intersection);
+        if (cycle != null) {
+            return cycle.getCurrentPhase(now);
         }
+        CoordinationGroup group = memberships.get(intersection);
+        return group != null ? group.getPhase(CoordinationGroup.getMemberOffset(intersection), now) : -1;
     }
 
     /**
-     * Updates element-based lights for one side of an intersection
+     * Checks if a phase is the one last drawn for an intersection
      */
-    private void updateSideElements(TrafficLightSide side, LightPhase activePhase,
-                                     TrafficLightElement neutralElement, BlockStateData neutralState) {
-        debug("Updating side " + side.getDirection() + " elements to phase " + activePhase);
-        int elementsUpdated = 0;
+    private boolean isRendered(Intersection intersection, int phase) {
+        Integer rendered = renderedPhases.get(intersection);
+        return rendered != null && rendered == phase;
+    }
 
-        // For each possible phase, update elements
-        for (LightPhase phase : LightPhase.values()) {
-            List<TrafficLightElement> elements = side.getLightElements(phase);
+    /**
+     * Gets the current cycle for an intersection
+     * @return The cycle, or null if the intersection is not animated or is driven by a group
+     */
+    public TrafficCycle getCycle(Intersection intersection) {
+        return cycles.get(intersection);
+    }
 
-            for (TrafficLightElement element : elements) {
-                ElementPosition pos = element.getPosition();
+    /**
+     * Gets the phase an intersection currently shows
+     * @return The phase index in the intersection's program, or -1 if the intersection is not animated
+     */
+    public int getCurrentPhase(Intersection intersection) {
+        return phaseOf(intersection, getCurrentTick());
+    }
 
-                // Determine what to display
-                TrafficLightElement targetElement;
-                if (phase == activePhase) {
-                    targetElement = element;
-                } else {
-                    targetElement = neutralElement;
-                }
+    /**
+     * Gets the phase program an intersection was registered with
+     * @return The program, or null if the intersection is not registered
+     */
+    public PhaseProgram getProgram(Intersection intersection) {
+        RenderPlan plan = plans.get(intersection);
+        return plan != null ? plan.getProgram() : null;
+    }
+
+    /**
+     * Gets the time left in the phase an intersection currently shows, in milliseconds
+     * @return The time, or -1 if the intersection is not animated or its group is paused
+     */
+    public long getTimeRemainingInPhase(Intersection intersection) {
+        long now = getCurrentTick();
+        TrafficCycle cycle = cycles.get(intersection);
+        if (cycle != null) {
+            return cycle.getTimeRemainingInPhase(now);
+        }
+        CoordinationGroup group = memberships.get(intersection);
+        return group != null ? group.getTimeRemainingInPhase(CoordinationGroup.getMemberOffset(intersection), now) : -1;
+    }
+
+    /**
+     * Gets the coordination group driving an intersection
+     * @return The group, or null if the intersection runs its own cycle or is not animated
+     */
+    public CoordinationGroup getGroupOf(Intersection intersection) {
+        return memberships.get(intersection);
+    }
 
-                // Only update if the element state has changed
-                LightPhase currentState = currentElementStates.get(pos);
-                LightPhase newState = (phase == activePhase) ? phase : null;
-                boolean isFirstUpdate = !currentElementStates.containsKey(pos);
+    /**
+     * Gets a coordination group by name
+     * @return The group, or null if no animated intersection belongs to it
+     */
+    public CoordinationGroup getGroup(String name) {
+        return groups.get(name);
+    }
 
-                if (isFirstUpdate || currentState != newState) {
-                    debug("  Setting element at " + pos + " (phase: " + phase + ", active: " + (phase == activePhase) + ")");
-                    applyElementState(element, targetElement, side.getDirection(), neutralState);
-                    currentElementStates.put(pos, newState);
-                    elementsUpdated++;
+    /**
+     * Gets every coordination group with animated members
+     */
+    public Collection<CoordinationGroup> getGroups() {
+        return Collections.unmodifiableCollection(groups.values());
+    }
+
+    /**
+     * Recompiles the members of a group after their timing changed and restarts the shared clock
+     * on the new program
+     * The caller updates and saves the members' timing first.
+     * @return false if no such group is animated
+     */
+    public boolean retimeGroup(String name) {
+        CoordinationGroup group = groups.get(name);
+        if (group == null) {
+            return false;
+        }
+        PhaseProgram program = null;
+        List<Intersection> mismatched = new ArrayList<>();
+        for (List<Intersection> members : group.getMembersByOffset().values()) {
+            for (Intersection member : members) {
+                RenderPlan plan = installPlan(member);
+                if (program == null) {
+                    program = plan.getProgram();
+                } else if (!program.isCompatibleWith(plan.getProgram())) {
+                    mismatched.add(member); // Custom tables keep their own durations
                 }
+                offsetAllocator.reserve(member, plan.getProgram());
             }
         }
-
-        debug("  Total elements updated for " + side.getDirection() + ": " + elementsUpdated);
+        group.setProgram(program);
+        long now = getCurrentTick();
+        scheduleGroup(group, now);
+        for (Intersection member : mismatched) {
+            startCycle(member, now); // Falls back to its own cycle with a warning
+        }
+        return true;
     }
 
     /**
-     * Updates pedestrian elements for a side
+     * Freezes a group's shared clock: every member keeps its current phase until resumed
+     * @return false if no such group is animated
      */
-    private void updatePedestrianElements(TrafficLightSide side, boolean isGreen,
-                                           TrafficLightElement neutralElement, BlockStateData neutralState) {
-        List<TrafficLightElement> greenElements = side.getPedestrianGreenElements();
-        List<TrafficLightElement> redElements = side.getPedestrianRedElements();
+    public boolean pauseGroup(String name) {
+        CoordinationGroup group = groups.get(name);
+        if (group == null) {
+            return false;
+        }
+        group.pause(getCurrentTick());
+        scheduleGroup(group, Long.MAX_VALUE);
+        return true;
+    }
 
-        if (isGreen) {
-            // Show pedestrian green elements
-            for (TrafficLightElement element : greenElements) {
-                applyElementState(element, element, null, neutralState);
-            }
+    /**
+     * Restarts a paused group's shared clock where it stopped
+     * @return false if no such group is animated
+     */
+    public boolean resumeGroup(String name) {
+        CoordinationGroup group = groups.get(name);
+        if (group == null) {
+            return false;
+        }
+        long now = getCurrentTick();
+        group.resume(now);
+        scheduleGroup(group, now);
+        return true;
+    }
 
-            // Show neutral state on red elements
-            for (TrafficLightElement element : redElements) {
-                applyElementState(element, neutralElement, null, neutralState);
+    /**
+     * Forgets what every member of a group shows, so all their outputs are rewritten on the next tick
+     * @return false if no such group is animated
+     */
+    public boolean resyncGroup(String name) {
+        CoordinationGroup group = groups.get(name);
+        if (group == null) {
+            return false;
+        }
+        for (List<Intersection> members : group.getMembersByOffset().values()) {
+            for (Intersection member : members) {
+                renderedPhases.remove(member);
+                RenderPlan plan = plans.get(member);
+                Integer base = elementBases.get(member);
+                if (plan != null && base != null) {
+                    appliedStates.reset(base, plan.getTargetCount());
+                }
             }
+        }
+        if (!group.isPaused()) {
+            scheduleGroup(group, getCurrentTick());
         } else {
-            // Show neutral state on green elements
-            for (TrafficLightElement element : greenElements) {
-                applyElementState(element, neutralElement, null, neutralState);
-            }
-
-            // Show pedestrian red elements
-            for (TrafficLightElement element : redElements) {
-                applyElementState(element, element, null, neutralState);
+            // A paused clock has no wheel entry: draw the frozen phase right away
+            long now = getCurrentTick();
+            for (Map.Entry<Integer, List<Intersection>> entry : group.getMembersByOffset().entrySet()) {
+                int phase = group.getPhase(entry.getKey(), now);
+                for (Intersection member : entry.getValue()) {
+                    if (plans.containsKey(member)) {
+                        updateIntersection(member, phase, now);
+                    }
+                }
             }
         }
+        return true;
     }
 
     /**
-     * Applies an element state to the world
-     * @param targetPosition The element whose position to use
-     * @param stateToApply The element state to apply (or null for neutral)
-     * @param direction Cardinal direction for rotation
-     * @param neutralState Fallback neutral state for blocks
+     * Gets the number of times a group's shared clock was read for a set of members
      */
-    private void applyElementState(TrafficLightElement targetPosition, TrafficLightElement stateToApply,
-                                    String direction, BlockStateData neutralState) {
-        if (targetPosition == null) return;
+    public long getGroupEvaluations() {
+        return groupEvaluations;
+    }
 
-        ElementPosition pos = targetPosition.getPosition();
-        Location location;
-        try {
-            location = pos.toLocation();
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Failed to get location for element at " + pos, e);
-            return;
+    /**
+     * Checks if the animator is running
+     */
+    public boolean isRunning() {
+        return animationTask != null;
+    }
+
+    /**
+     * Gets the number of active cycles
+     */
+    public int getActiveCycleCount() {
+        return cycles.size() + memberships.size();
+    }
+
+    /**
+     * Gets the current tick on the clock cycles run on
+     * EPOCH cycles use a wall-clock tick (1 tick = 50ms since the Unix epoch) so their phases are
+     * deterministic across restarts and unaffected by lag; RELATIVE cycles use the server tick.
+     */
+    public long getCurrentTick() {
+        if (cycleMode == TrafficCycle.Mode.EPOCH) {
+            return System.currentTimeMillis() / 50;
         }
+        return Bukkit.getCurrentTick();
+    }
 
-        // Check if chunk is loaded
-        if (!location.isChunkLoaded()) {
-            return;
+    /**
+     * Reads the cycle mode from config (animation.cycle-mode: epoch or relative)
+     */
+    private TrafficCycle.Mode readCycleMode() {
+        String value = plugin.getConfig().getString("animation.cycle-mode", "epoch");
+        try {
+            return TrafficCycle.Mode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("Unknown animation.cycle-mode '" + value + "', using epoch");
+            return TrafficCycle.Mode.EPOCH;
         }
+    }
 
-        Chunk chunk = location.getChunk();
-        if (!chunk.isEntitiesLoaded()) {
-            return;
+    /**
+     * Reads the rendering backend from config (rendering.mode: world or client)
+     */
+    private boolean readClientSideMode() {
+        String value = plugin.getConfig().getString("rendering.mode", "world").trim();
+        if (!value.equalsIgnoreCase("world") && !value.equalsIgnoreCase("client")) {
+            LOGGER.warning("Unknown rendering.mode '" + value + "', using world");
+            return false;
         }
+        return value.equalsIgnoreCase("client");
+    }
 
-        World world = location.getWorld();
+    /**
+     * Reads the write budget from config (rendering.budget)
+     */
+    private void configureRenderQueue() {
+        renderQueue.configure(
+                plugin.getConfig().getInt("rendering.budget.max-writes-per-tick", 256),
+                plugin.getConfig().getDouble("rendering.budget.max-millis-per-tick", 5.0),
+                plugin.getConfig().getBoolean("rendering.budget.adaptive", true));
+    }
 
-        // Handle ItemFrameElements specially
-        if (targetPosition instanceof ItemFrameElement) {
-            ItemFrameElement frameElement = (ItemFrameElement) targetPosition;
-            ItemFrame itemFrame = frameElement.findOrSpawnItemFrame(world);
+    /**
+     * Reads the proximity culling settings from config (culling)
+     */
+    private void configureCuller() {
+        culler.configure(
+                plugin.getConfig().getBoolean("culling.enabled", true),
+                plugin.getConfig().getInt("culling.near-distance", 64),
+                plugin.getConfig().getInt("culling.view-distance", -1));
+    }
 
-            if (itemFrame == null) {
-                LOGGER.warning("Could not find or spawn item frame at " + frameElement.getPosition());
-                return;
-            }
+    /**
+     * Gets the proximity culler holding each intersection's level-of-detail tier
+     */
+    public ProximityCuller getCuller() {
+        return culler;
+    }
 
-            if (stateToApply instanceof ItemFrameElement) {
-                // Apply another item frame's state to this frame
-                ItemFrameElement stateSource = (ItemFrameElement) stateToApply;
-                if (stateSource.getFrameState() != null) {
-                    stateSource.getFrameState().applyToItemFrame(itemFrame, false);
-                    debug("Applied item frame state from " + stateSource.getPosition() + " to " + frameElement.getPosition());
-                }
-            } else {
-                // No item frame neutral state - set to empty
-                // Temporarily set fixed=true to prevent item drops
-                boolean wasFixed = itemFrame.isFixed();
-                itemFrame.setFixed(true);
-                itemFrame.setItem(null, false);
-                itemFrame.setFixed(wasFixed);
-                debug("Set item frame to empty at " + frameElement.getPosition());
-            }
-            return;
-        }
+    /**
+     * Gets the number of phase changes not drawn because no player was in range
+     */
+    public long getCulledChanges() {
+        return culledChanges;
+    }
 
-        // Handle BlockElements
-        if (stateToApply != null) {
-            // Apply the target state
-            if (direction != null) {
-                stateToApply.apply(world, direction);
-            } else {
-                stateToApply.applyWithFacingFrom(world, targetPosition);
-            }
-        } else if (targetPosition instanceof BlockElement) {
-            // Fallback to legacy neutral state for blocks
-            if (neutralState != null) {
-                Block block = location.getBlock();
-                neutralState.applyToBlockWithFacingFrom(block, ((BlockElement) targetPosition).getBlockStateData());
-            }
-        }
+    /**
+     * Gets the number of phase changes of FAR intersections left to the classification pass
+     */
+    public long getCoalescedChanges() {
+        return coalescedChanges;
     }
 
     /**
-     * Applies a block state copying the facing from another block state
-     * Used for neutral blocks that need to match the orientation of what they replace
+     * Gets the number of renders done by classification passes to catch intersections up
      */
-    private void applyBlockStateWithFacing(BlockPosition position, BlockStateData state, BlockStateData facingSource) {
-        if (state == null) {
-            LOGGER.warning("Cannot apply null block state at " + position);
-            return;
-        }
-        try {
-            Location location = position.toLocation();
+    public long getCatchUpRenders() {
+        return catchUpRenders;
+    }
 
-            // Check if chunk is loaded with active entities
-            if (!location.isChunkLoaded()) {
-                return; // Chunk not loaded, skip
-            }
+    /**
+     * Gets the chunk activity tracker fed by chunk load events
+     */
+    public ChunkActivityTracker getChunkActivity() {
+        return chunkActivity;
+    }
 
-            Chunk chunk = location.getChunk();
-            if (!chunk.isEntitiesLoaded()) {
-                return; // Entities not loaded, skip
-            }
+    /**
+     * Gets the number of phase changes skipped because none of the intersection's chunks were loaded
+     */
+    public long getSkippedChanges() {
+        return skippedChanges;
+    }
 
-            Block block = location.getBlock();
-            state.applyToBlockWithFacingFrom(block, facingSource);
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Failed to apply block state at " + position, e);
-        }
+    /**
+     * Gets the number of intersections re-rendered after their chunks loaded
+     */
+    public long getResyncs() {
+        return resyncs;
     }
 
     /**
-     * Applies a block state to a block in the world
-     * This is where the actual block replacement happens
-     * @param position Position of the block
-     * @param state Block state to apply
-     * @param direction Cardinal direction (North/South/East/West) for automatic head rotation
+     * Gets the applied-state array of every animated output
      */
-    private void applyBlockState(BlockPosition position, BlockStateData state, String direction) {
-        if (state == null) {
-            LOGGER.warning("Cannot apply null block state at " + position);
-            return;
-        }
-        try {
-            Location location = position.toLocation();
+    public ElementStateIndex getAppliedStates() {
+        return appliedStates;
+    }
 
-            // Check if chunk is loaded with active entities
-            if (!location.isChunkLoaded()) {
-                return; // Chunk not loaded, skip
-            }
+    /**
+     * Gets the number of vehicle light outputs queued for a write
+     */
+    public long getVehicleWrites() {
+        return vehicleWrites;
+    }
 
-            Chunk chunk = location.getChunk();
-            if (!chunk.isEntitiesLoaded()) {
-                return; // Entities not loaded, skip
-            }
+    /**
+     * Gets the number of pedestrian light outputs queued for a write
+     */
+    public long getPedestrianWrites() {
+        return pedestrianWrites;
+    }
 
-            Block block = location.getBlock();
-            state.applyToBlock(block, direction);
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Failed to apply block state at " + position, e);
-        }
+    /**
+     * Gets the number of pedestrian outputs checked on a full render but left alone as unchanged
+     */
+    public long getPedestrianUnchanged() {
+        return pedestrianUnchanged;
     }
 
     /**
-     * Gets the current cycle for an intersection
+     * Gets the client-side rendering backend
      */
-    public TrafficCycle getCycle(Intersection intersection) {
-        return cycles.get(intersection);
+    public ClientRenderer getClientRenderer() {
+        return clientRenderer;
     }
 
     /**
-     * Checks if the animator is running
+     * Gets the budgeted write queue
      */
-    public boolean isRunning() {
-        return animationTask != null;
+    public RenderQueue getRenderQueue() {
+        return renderQueue;
     }
 
     /**
-     * Gets the number of active cycles
+     * Gets the per-tick phase change and write counters
      */
-    public int getActiveCycleCount() {
-        return cycles.size();
+    public WriteVolumeTracker getWriteVolume() {
+        return writeVolume;
     }
 
     /**
-     * Reloads the tick interval from config
+     * Gets the highest number of phase changes the assigned offsets put on a single tick
      */
-    public void reloadConfig() {
-        this.tickInterval = plugin.getConfig().getInt("animation.tick-interval", 10);
+    public int getPeakReservedChanges() {
+        return offsetAllocator.getPeakReservedChanges();
+    }
 
-        if (animationTask != null) {
-            // Restart with new interval
+    /**
+     * Gets the number of phase changes scheduled on the timing wheel
+     */
+    public int getScheduledPhaseChanges() {
+        return scheduler != null ? scheduler.size() : 0;
+    }
+
+    /**
+     * Gets the number of phase changes performed since the animator started
+     */
+    public long getPhaseChanges() {
+        return phaseChanges;
+    }
+
+    /**
+     * Restarts the animator if the cycle mode or rendering backend changed in config
+     */
+    public void reloadConfig() {
+        configureRenderQueue();
+        configureCuller();
+        maxChangesPerTick = Math.max(0, plugin.getConfig().getInt("animation.max-changes-per-tick", 8));
+        TrafficCycle.Mode mode = readCycleMode();
+        if (animationTask != null && (mode != cycleMode || readClientSideMode() != clientRenderer.isEnabled())) {
             stop();
             start();
         }
+        cycleMode = mode;
     }
 }
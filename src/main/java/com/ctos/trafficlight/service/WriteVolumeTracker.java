@@ -0,0 +1,208 @@
+package com.ctos.trafficlight.service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Records how many phase changes and world writes the animator performs on each tick
+ * Keeps a rolling window of recent ticks plus all-time peaks, so write spikes are visible.
+ * Also measures the heap bytes the tick allocates, on JVMs that report per-thread allocation.
+ * Not thread-safe: use from the main thread only.
+ */
+public class WriteVolumeTracker {
+    private static final int WINDOW_TICKS = 1200; // One minute
+
+    private final int[] writesPerTick = new int[WINDOW_TICKS];
+    private final int[] changesPerTick = new int[WINDOW_TICKS];
+    private final long[] bytesPerTick = new long[WINDOW_TICKS];
+    private final com.sun.management.ThreadMXBean allocationCounter; // null if unsupported
+    private int cursor;
+    private int filled;
+
+    private int tickWrites;
+    private int tickChanges;
+    private int peakWrites;
+    private int peakChanges;
+    private long totalWrites;
+    private long deferredChanges;
+    private long tickStartBytes;
+    private long peakBytes;
+
+    public WriteVolumeTracker() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean counter && counter.isThreadAllocatedMemorySupported()
+                && counter.isThreadAllocatedMemoryEnabled()) {
+            this.allocationCounter = counter;
+        } else {
+            this.allocationCounter = null;
+        }
+    }
+
+    /**
+     * Starts counting a new tick
+     */
+    public void beginTick() {
+        tickWrites = 0;
+        tickChanges = 0;
+        if (allocationCounter != null) {
+            tickStartBytes = allocationCounter.getCurrentThreadAllocatedBytes();
+        }
+    }
+
+    /**
+     * Records a phase change on the current tick
+     */
+    public void recordChange() {
+        tickChanges++;
+    }
+
+    /**
+     * Records world writes done on the current tick
+     */
+    public void recordWrites(int writes) {
+        tickWrites += writes;
+    }
+
+    /**
+     * Records a phase change pushed to a later tick by the per-tick cap
+     */
+    public void recordDeferred() {
+        deferredChanges++;
+    }
+
+    /**
+     * Gets the number of phase changes performed so far on the current tick
+     */
+    public int getTickChanges() {
+        return tickChanges;
+    }
+
+    /**
+     * Closes the current tick and stores it in the window
+     */
+    public void endTick() {
+        writesPerTick[cursor] = tickWrites;
+        changesPerTick[cursor] = tickChanges;
+        if (allocationCounter != null) {
+            long bytes = allocationCounter.getCurrentThreadAllocatedBytes() - tickStartBytes;
+            bytesPerTick[cursor] = bytes;
+            peakBytes = Math.max(peakBytes, bytes);
+        }
+        cursor = (cursor + 1) % WINDOW_TICKS;
+        filled = Math.min(filled + 1, WINDOW_TICKS);
+
+        peakWrites = Math.max(peakWrites, tickWrites);
+        peakChanges = Math.max(peakChanges, tickChanges);
+        totalWrites += tickWrites;
+    }
+
+    /**
+     * Gets the highest number of writes on a single tick within the window
+     */
+    public int getWindowPeakWrites() {
+        int peak = 0;
+        for (int i = 0; i < filled; i++) {
+            peak = Math.max(peak, writesPerTick[i]);
+        }
+        return peak;
+    }
+
+    /**
+     * Gets the highest number of phase changes on a single tick within the window
+     */
+    public int getWindowPeakChanges() {
+        int peak = 0;
+        for (int i = 0; i < filled; i++) {
+            peak = Math.max(peak, changesPerTick[i]);
+        }
+        return peak;
+    }
+
+    /**
+     * Gets the average number of writes per tick within the window
+     */
+    public double getWindowAverageWrites() {
+        if (filled == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < filled; i++) {
+            sum += writesPerTick[i];
+        }
+        return (double) sum / filled;
+    }
+
+    /**
+     * Gets the average number of bytes allocated by a tick within the window
+     */
+    public double getWindowAverageBytes() {
+        if (filled == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < filled; i++) {
+            sum += bytesPerTick[i];
+        }
+        return (double) sum / filled;
+    }
+
+    /**
+     * Gets the number of ticks in the window that allocated nothing
+     */
+    public int getWindowAllocationFreeTicks() {
+        int free = 0;
+        for (int i = 0; i < filled; i++) {
+            if (bytesPerTick[i] == 0) {
+                free++;
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Checks if per-tick allocation is measured (the JVM reports per-thread allocated bytes)
+     */
+    public boolean isAllocationTracked() {
+        return allocationCounter != null;
+    }
+
+    /**
+     * Gets the number of ticks in the window that had at least one write
+     */
+    public int getWindowBusyTicks() {
+        int busy = 0;
+        for (int i = 0; i < filled; i++) {
+            if (writesPerTick[i] > 0) {
+                busy++;
+            }
+        }
+        return busy;
+    }
+
+    public int getWindowTicks() {
+        return filled;
+    }
+
+    public int getPeakWrites() {
+        return peakWrites;
+    }
+
+    public int getPeakChanges() {
+        return peakChanges;
+    }
+
+    public long getTotalWrites() {
+        return totalWrites;
+    }
+
+    /**
+     * Gets the highest number of bytes allocated by a single tick
+     */
+    public long getPeakBytes() {
+        return peakBytes;
+    }
+
+    public long getDeferredChanges() {
+        return deferredChanges;
+    }
+}
@@ -16,16 +16,12 @@ public class SetupSession {
     private Intersection intersectionInProgress;
     private TrafficLightSide currentSideInProgress;
     private LightPhase currentPhaseBeingConfigured;
-    private List<BlockPosition> selectedBlocksBuffer;
-    private List<BlockStateData> selectedStatesBuffer;
-    private List<TrafficLightElement> selectedElementsBuffer; // New: for element-based selection
+    private List<TrafficLightElement> selectedElementsBuffer; // Selected blocks, item frames and displays
     private long lastInteractionTime;
 
     public SetupSession(UUID playerId) {
         this.playerId = playerId;
         this.currentStep = SetupStep.NONE;
-        this.selectedBlocksBuffer = new ArrayList<>();
-        this.selectedStatesBuffer = new ArrayList<>();
         this.selectedElementsBuffer = new ArrayList<>();
         this.lastInteractionTime = System.currentTimeMillis();
     }
@@ -62,13 +58,7 @@ public class SetupSession {
         if (intersectionInProgress == null) {
             return false;
         }
-        List<TrafficLightSide> sides = intersectionInProgress.getSides();
-        if (sideIndex < 0 || sideIndex >= sides.size()) {
-            return false;
-        }
-        sides.remove(sideIndex);
-        intersectionInProgress.setSides(sides);
-        return true;
+        return intersectionInProgress.removeSide(sideIndex);
     }
 
     /**
@@ -79,17 +69,6 @@ public class SetupSession {
         lastInteractionTime = System.currentTimeMillis();
     }
 
-    /**
-     * Adds a block to the current selection buffer
-     */
-    public void addToBuffer(BlockPosition position, BlockStateData state) {
-        if (!selectedBlocksBuffer.contains(position)) {
-            selectedBlocksBuffer.add(position);
-            selectedStatesBuffer.add(state);
-            lastInteractionTime = System.currentTimeMillis();
-        }
-    }
-
     /**
      * Adds an element (block or item frame) to the current selection buffer
      */
@@ -134,27 +113,6 @@ public class SetupSession {
             }
         }
 
-        // Handle legacy block-based selection
-        if (!selectedBlocksBuffer.isEmpty()) {
-            switch (currentStep) {
-                case SELECT_RED_BLOCKS:
-                    currentSideInProgress.setLightBlocks(LightPhase.RED, selectedBlocksBuffer, selectedStatesBuffer);
-                    break;
-                case SELECT_ORANGE_BLOCKS:
-                    currentSideInProgress.setLightBlocks(LightPhase.ORANGE, selectedBlocksBuffer, selectedStatesBuffer);
-                    break;
-                case SELECT_GREEN_BLOCKS:
-                    currentSideInProgress.setLightBlocks(LightPhase.GREEN, selectedBlocksBuffer, selectedStatesBuffer);
-                    break;
-                case SELECT_PEDESTRIAN_GREEN:
-                    currentSideInProgress.setPedestrianGreenBlocks(selectedBlocksBuffer, selectedStatesBuffer);
-                    break;
-                case SELECT_PEDESTRIAN_RED:
-                    currentSideInProgress.setPedestrianRedBlocks(selectedBlocksBuffer, selectedStatesBuffer);
-                    break;
-            }
-        }
-
         clearBuffer();
         lastInteractionTime = System.currentTimeMillis();
     }
@@ -163,8 +121,6 @@ public class SetupSession {
      * Clears the selection buffer
      */
     public void clearBuffer() {
-        selectedBlocksBuffer.clear();
-        selectedStatesBuffer.clear();
         selectedElementsBuffer.clear();
     }
 
@@ -173,7 +129,7 @@ public class SetupSession {
      */
     public void completeSide() {
         if (currentSideInProgress != null &&
-                (currentSideInProgress.isComplete() || currentSideInProgress.isElementsComplete())) {
+                currentSideInProgress.isElementsComplete()) {
             intersectionInProgress.addSide(currentSideInProgress);
             currentSideInProgress = null;
         }
@@ -266,14 +222,6 @@ public class SetupSession {
         this.currentSideInProgress = currentSideInProgress;
     }
 
-    public List<BlockPosition> getSelectedBlocksBuffer() {
-        return new ArrayList<>(selectedBlocksBuffer);
-    }
-
-    public int getBufferSize() {
-        return selectedBlocksBuffer.size();
-    }
-
     /**
      * Gets the number of elements in the selection buffer
      */
@@ -282,10 +230,10 @@ public class SetupSession {
     }
 
     /**
-     * Gets the total selection count (blocks + elements)
+     * Gets the total selection count (blocks, item frames and displays)
      */
     public int getTotalBufferSize() {
-        return selectedBlocksBuffer.size() + selectedElementsBuffer.size();
+        return selectedElementsBuffer.size();
     }
 
     /**
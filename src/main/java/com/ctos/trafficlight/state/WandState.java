@@ -50,6 +50,9 @@ public class WandState {
         lore.add(Component.text("Right-click: Select block")
                 .color(NamedTextColor.GRAY)
                 .decoration(TextDecoration.ITALIC, false));
+        lore.add(Component.text("Shift-right-click: Select nearest display entity")
+                .color(NamedTextColor.GRAY)
+                .decoration(TextDecoration.ITALIC, false));
         lore.add(Component.text("Left-click: Confirm selection")
                 .color(NamedTextColor.GRAY)
                 .decoration(TextDecoration.ITALIC, false));
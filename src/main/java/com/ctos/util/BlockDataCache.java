@@ -0,0 +1,45 @@
+package com.ctos.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.block.data.BlockData;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide intern table of parsed block data
+ * Identical block state strings share a single BlockData instance, so each string is parsed only once.
+ * Returned instances are shared: callers must never mutate them (clone() first if needed).
+ */
+public final class BlockDataCache {
+    private static final Map<String, BlockData> PARSED = new ConcurrentHashMap<>();
+
+    private BlockDataCache() {
+    }
+
+    /**
+     * Gets the shared BlockData for a block state string, parsing it on first use
+     * @throws IllegalArgumentException if the string is not valid block data
+     */
+    public static BlockData get(String blockDataString) {
+        BlockData cached = PARSED.get(blockDataString);
+        if (cached != null) {
+            return cached;
+        }
+        return PARSED.computeIfAbsent(blockDataString, Bukkit::createBlockData);
+    }
+
+    /**
+     * Gets the number of distinct block states parsed so far
+     */
+    public static int size() {
+        return PARSED.size();
+    }
+
+    /**
+     * Drops every cached instance (on plugin disable)
+     */
+    public static void clear() {
+        PARSED.clear();
+    }
+}
@@ -0,0 +1,36 @@
+package com.ctos.util;
+
+/**
+ * Packs block positions into a single long for primitive-keyed maps
+ *
+ * Same layout as vanilla BlockPos#asLong (high to low bits): 26-bit x, 26-bit z, 12-bit y.
+ * x and z cover -33554432..33554431 and y covers -2048..2047, which holds every position inside
+ * the world border and build height limits, so no two reachable blocks share a key. The world is
+ * not part of the key: maps keyed by it are kept per world id (see WorldRegistry).
+ */
+public final class PositionKeys {
+
+    private PositionKeys() {
+    }
+
+    /**
+     * Packs a position into its key
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFF) << 38
+                | ((long) z & 0x3FFFFFF) << 12
+                | ((long) y & 0xFFF);
+    }
+
+    public static int x(long key) {
+        return (int) (key >> 38);
+    }
+
+    public static int z(long key) {
+        return (int) (key << 26 >> 38);
+    }
+
+    public static int y(long key) {
+        return (int) (key << 52 >> 52);
+    }
+}
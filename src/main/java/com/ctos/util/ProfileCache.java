@@ -0,0 +1,98 @@
+package com.ctos.util;
+
+import com.destroystokyo.paper.profile.PlayerProfile;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Process-wide, bounded cache of player profiles keyed by their serialized form
+ * Traffic light heads reuse a handful of textures, so each profile is built once and shared.
+ * Least recently used entries are evicted once the cache is full.
+ * Returned profiles are shared: callers must never modify them.
+ */
+public final class ProfileCache {
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private static final Map<String, PlayerProfile> PROFILES = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PlayerProfile> eldest) {
+            if (size() > maxSize) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static int maxSize = DEFAULT_MAX_SIZE;
+    private static long hits;
+    private static long misses;
+    private static long evictions;
+
+    private ProfileCache() {
+    }
+
+    /**
+     * Gets the profile for a serialized string, building it with the loader on a miss
+     * Profiles the loader fails to build (null) are not cached.
+     */
+    public static synchronized PlayerProfile get(String serialized, Function<String, PlayerProfile> loader) {
+        PlayerProfile profile = PROFILES.get(serialized);
+        if (profile != null) {
+            hits++;
+            return profile;
+        }
+
+        misses++;
+        profile = loader.apply(serialized);
+        if (profile != null) {
+            PROFILES.put(serialized, profile);
+        }
+        return profile;
+    }
+
+    /**
+     * Sets the maximum number of cached profiles, evicting the least recently used ones if needed
+     */
+    public static synchronized void setMaxSize(int size) {
+        maxSize = Math.max(1, size);
+        var iterator = PROFILES.entrySet().iterator();
+        while (PROFILES.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    public static synchronized int getMaxSize() {
+        return maxSize;
+    }
+
+    public static synchronized int size() {
+        return PROFILES.size();
+    }
+
+    public static synchronized long getHits() {
+        return hits;
+    }
+
+    public static synchronized long getMisses() {
+        return misses;
+    }
+
+    public static synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Drops every cached profile and resets the counters (on plugin disable)
+     */
+    public static synchronized void clear() {
+        PROFILES.clear();
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+}
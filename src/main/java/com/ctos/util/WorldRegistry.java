@@ -0,0 +1,127 @@
+package com.ctos.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of world names
+ * Only worlds holding traffic light positions get an id: one is assigned when the first position
+ * in a world is created and kept for the life of the process. The loaded World handle is cached
+ * under that id (updated by world load and unload events), so positions resolve their world with
+ * a plain array read instead of a name lookup. Events and player lookups use lookup, which never
+ * assigns, so worlds without traffic lights (minigame or per-instance worlds) cost nothing.
+ * Safe to use from any thread (persistence assigns ids while loading asynchronously).
+ */
+public final class WorldRegistry {
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[8];
+    private static volatile World[] worlds = new World[8];
+    private static int nextId;
+
+    private WorldRegistry() {
+    }
+
+    /**
+     * Gets the id of a world name, assigning the next free id on first use
+     * Only for worlds that hold traffic light positions; use lookup everywhere else
+     */
+    public static int idOf(String worldName) {
+        Integer id = IDS.get(worldName);
+        if (id != null) {
+            return id;
+        }
+        return assign(worldName);
+    }
+
+    /**
+     * Gets the id of a world name without assigning one
+     * @return The id, or -1 if no traffic light position was ever created in that world
+     */
+    public static int lookup(String worldName) {
+        Integer id = IDS.get(worldName);
+        return id != null ? id : -1;
+    }
+
+    private static synchronized int assign(String worldName) {
+        Integer id = IDS.get(worldName);
+        if (id != null) {
+            return id;
+        }
+
+        int assigned = nextId++;
+        if (assigned >= names.length) {
+            names = Arrays.copyOf(names, names.length * 2);
+            worlds = Arrays.copyOf(worlds, worlds.length * 2);
+        }
+        names[assigned] = worldName.intern();
+        // The world may have loaded before it had an id, when its load event was skipped
+        worlds[assigned] = Bukkit.getWorld(worldName);
+        IDS.put(worldName, assigned);
+        return assigned;
+    }
+
+    /**
+     * Gets the loaded world for an id
+     * @return The world, or null if it is not loaded
+     */
+    public static World get(int id) {
+        World[] current = worlds;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * Gets the interned world name for an id
+     */
+    public static String getName(int id) {
+        String[] current = names;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * Caches the handle of a world that just loaded (worlds without an id are skipped)
+     */
+    public static synchronized void onWorldLoad(World world) {
+        int id = lookup(world.getName());
+        if (id >= 0) {
+            worlds[id] = world;
+        }
+    }
+
+    /**
+     * Drops the handle of a world that is unloading (its id is kept)
+     */
+    public static synchronized void onWorldUnload(World world) {
+        int id = lookup(world.getName());
+        if (id >= 0) {
+            worlds[id] = null;
+        }
+    }
+
+    /**
+     * Caches the handles of every loaded world (on plugin enable)
+     */
+    public static void seed() {
+        for (World world : Bukkit.getWorlds()) {
+            onWorldLoad(world);
+        }
+    }
+
+    /**
+     * Gets the number of world names with an id
+     */
+    public static int size() {
+        return IDS.size();
+    }
+
+    /**
+     * Drops every cached world handle (on plugin disable)
+     * Ids stay assigned, as positions keep referring to them
+     */
+    public static synchronized void clear() {
+        Arrays.fill(worlds, null);
+    }
+}